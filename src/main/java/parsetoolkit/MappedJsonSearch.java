@@ -0,0 +1,572 @@
+package parsetoolkit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * File-based counterpart of {@link ParseToolKit#dictSearch(Object, String, boolean)} for
+ * NDJSON files and files holding one top-level JSON array. The file is memory-mapped and cut
+ * into chunks that end on a record boundary, the chunks are scanned on a shared pool by a
+ * streaming tokenizer that only materializes the values of the searched keys.
+ *
+ * Results come out in file order, chunk by chunk: a few chunks are scanned ahead of the
+ * consumer and nothing more, so stopping early leaves the rest of the file unread.
+ * NDJSON boundaries are found by seeking to the next newline. Array boundaries need the
+ * nesting and string state, so the chunk producer runs a byte-level pass over each chunk
+ * before handing it to the pool, which overlaps with the scanning of the previous chunks.
+ */
+class MappedJsonSearch implements Spliterator<ParseToolKit.Pair<String, Object>> {
+    private static final Logger logger = LoggerFactory.getLogger(MappedJsonSearch.class);
+    static final int DEFAULT_CHUNK_BYTES = 32 << 20;
+    private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+    private static final AtomicInteger SCANNER_INDEX = new AtomicInteger();
+    private static final ExecutorService SCAN_POOL = Executors.newFixedThreadPool(PARALLELISM, r -> {
+        Thread thread = new Thread(r, "json-file-scanner-" + SCANNER_INDEX.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Path file;
+    private final FileChannel channel;
+    private final long size;
+    private final int chunkBytes;
+    private final boolean array;
+    private final String[] keyNames;
+    private final byte[][] keyBytes;
+    private final Deque<CompletableFuture<List<ParseToolKit.Pair<String, Object>>>> inFlight = new ArrayDeque<>();
+    private Iterator<ParseToolKit.Pair<String, Object>> current = Collections.emptyIterator();
+    private long next;
+    /** Set once the closing bracket of the top-level array is found, what follows is not scanned. */
+    private boolean arrayClosed = false;
+    private volatile boolean closed = false;
+
+    MappedJsonSearch(Path file, Collection<String> keys, int chunkBytes) throws IOException {
+        if (keys.isEmpty()) {
+            throw new IllegalArgumentException("At least one key is required");
+        }
+        if (chunkBytes <= 0) {
+            throw new IllegalArgumentException("chunkBytes must be > 0");
+        }
+        this.file = file;
+        this.chunkBytes = chunkBytes;
+        this.keyNames = keys.toArray(new String[0]);
+        this.keyBytes = new byte[keyNames.length][];
+        for (int i = 0; i < keyNames.length; i++) {
+            keyBytes[i] = keyNames[i].getBytes(StandardCharsets.UTF_8);
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            this.size = channel.size();
+            long first = firstNonWhitespace();
+            this.array = first < size && byteAt(first) == '[';
+            this.next = array ? first + 1 : 0;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super ParseToolKit.Pair<String, Object>> action) {
+        while (!current.hasNext()) {
+            if (closed) {
+                return false;
+            }
+            fill();
+            CompletableFuture<List<ParseToolKit.Pair<String, Object>>> head = inFlight.poll();
+            if (head == null) {
+                close();
+                return false;
+            }
+            try {
+                current = head.join().iterator();
+            } catch (CompletionException | CancellationException e) {
+                close();
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                logger.error("Failed to search {}: {}", file, cause.getMessage());
+                throw cause instanceof RuntimeException ? (RuntimeException) cause : e;
+            }
+        }
+        action.accept(current.next());
+        return true;
+    }
+
+    /**
+     * Keeps one chunk per pool thread in flight.
+     */
+    private void fill() {
+        try {
+            while (inFlight.size() < PARALLELISM && next < size) {
+                long start = next;
+                long end = boundary(start);
+                // Nothing but the closing bracket and trailing bytes is left after the array
+                next = arrayClosed ? size : end;
+                if (end == start) {
+                    break;
+                }
+                if (end - start > Integer.MAX_VALUE) {
+                    throw new IllegalStateException("Record larger than 2 GB at byte " + start + " in " + file);
+                }
+                ByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                inFlight.add(CompletableFuture.supplyAsync(() -> new Tokenizer(chunk, start).scanRecords(), SCAN_POOL));
+            }
+            if (next >= size && channel.isOpen()) {
+                // Mapped chunks stay valid once the channel is closed
+                channel.close();
+            }
+        } catch (IOException e) {
+            close();
+            logger.error("Failed to map {}: {}", file, e.getMessage());
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return The end (exclusive) of the chunk starting at start, on a record boundary.
+     */
+    private long boundary(long start) throws IOException {
+        long nominal = start + chunkBytes;
+        if (nominal >= size) {
+            return size;
+        }
+        if (!array) {
+            // A raw newline cannot occur inside an NDJSON record
+            for (long offset = nominal; offset < size; ) {
+                ByteBuffer window = map(offset);
+                for (int i = 0; i < window.limit(); i++) {
+                    if (window.get(i) == '\n') {
+                        return offset + i + 1;
+                    }
+                }
+                offset += window.limit();
+            }
+            return size;
+        }
+        int depth = 0;
+        boolean inString = false;
+        boolean escaped = false;
+        for (long offset = start; offset < size; ) {
+            ByteBuffer window = map(offset);
+            for (int i = 0; i < window.limit(); i++) {
+                byte b = window.get(i);
+                if (inString) {
+                    if (escaped) {
+                        escaped = false;
+                    } else if (b == '\\') {
+                        escaped = true;
+                    } else if (b == '"') {
+                        inString = false;
+                    }
+                } else if (b == '"') {
+                    inString = true;
+                } else if (b == '{' || b == '[') {
+                    depth++;
+                } else if (b == '}' || b == ']') {
+                    if (--depth < 0) {
+                        // Closing bracket of the top-level array
+                        arrayClosed = true;
+                        return offset + i;
+                    }
+                } else if (b == ',' && depth == 0 && offset + i >= nominal) {
+                    return offset + i;
+                }
+            }
+            offset += window.limit();
+        }
+        return size;
+    }
+
+    private ByteBuffer map(long offset) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(chunkBytes, size - offset));
+    }
+
+    private long firstNonWhitespace() throws IOException {
+        for (long offset = 0; offset < size; ) {
+            ByteBuffer window = map(offset);
+            for (int i = 0; i < window.limit(); i++) {
+                if (!isWhitespace(window.get(i))) {
+                    return offset + i;
+                }
+            }
+            offset += window.limit();
+        }
+        return size;
+    }
+
+    private byte byteAt(long offset) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, offset, 1).get(0);
+    }
+
+    /**
+     * Stops scanning ahead and releases the file, called by the stream's close().
+     */
+    void close() {
+        closed = true;
+        for (CompletableFuture<?> future : inFlight) {
+            future.cancel(false);
+        }
+        inFlight.clear();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.error("Failed to close {}: {}", file, e.getMessage());
+        }
+    }
+
+    @Override
+    public Spliterator<ParseToolKit.Pair<String, Object>> trySplit() {
+        // Chunks are already scanned in parallel, the stream itself stays sequential and ordered
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+
+    private static boolean isWhitespace(int b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    /**
+     * Streaming tokenizer over one chunk. Values of the searched keys are built as
+     * LinkedHashMap, ArrayList, String, Long, Double, Boolean or null, everything else is
+     * skipped without allocating. Like the in-memory search, a matched value is not searched
+     * any further.
+     */
+    private class Tokenizer {
+        private final ByteBuffer buf;
+        private final long base;
+        private final List<ParseToolKit.Pair<String, Object>> results = new ArrayList<>();
+        private int pos = 0;
+
+        Tokenizer(ByteBuffer buf, long base) {
+            this.buf = buf;
+            this.base = base;
+        }
+
+        List<ParseToolKit.Pair<String, Object>> scanRecords() {
+            int end = buf.limit();
+            try {
+                while (!closed) {
+                    while (pos < end && (isWhitespace(buf.get(pos)) || buf.get(pos) == ',')) {
+                        pos++;
+                    }
+                    if (pos >= end || buf.get(pos) == ']') {
+                        return results;
+                    }
+                    search();
+                }
+                return results;
+            } catch (IndexOutOfBoundsException e) {
+                throw malformed("unexpected end of record");
+            }
+        }
+
+        private void search() {
+            int b = peek();
+            if (b == '{') {
+                pos++;
+                if (peek() == '}') {
+                    pos++;
+                    return;
+                }
+                while (true) {
+                    expect('"');
+                    int keyStart = pos;
+                    int keyEnd = skipString();
+                    expectAfterWhitespace(':');
+                    int match = matchKey(keyStart, keyEnd);
+                    if (match >= 0) {
+                        results.add(new ParseToolKit.Pair<>(keyNames[match], build()));
+                    } else {
+                        search();
+                    }
+                    if (!nextMember('}')) {
+                        return;
+                    }
+                }
+            } else if (b == '[') {
+                pos++;
+                if (peek() == ']') {
+                    pos++;
+                    return;
+                }
+                do {
+                    search();
+                } while (nextMember(']'));
+            } else if (b == '"') {
+                pos++;
+                skipString();
+            } else {
+                skipLiteral();
+            }
+        }
+
+        private Object build() {
+            int b = peek();
+            if (b == '{') {
+                pos++;
+                Map<String, Object> map = new LinkedHashMap<>();
+                if (peek() == '}') {
+                    pos++;
+                    return map;
+                }
+                do {
+                    expect('"');
+                    String key = readString();
+                    expectAfterWhitespace(':');
+                    map.put(key, build());
+                } while (nextMember('}'));
+                return map;
+            } else if (b == '[') {
+                pos++;
+                List<Object> list = new ArrayList<>();
+                if (peek() == ']') {
+                    pos++;
+                    return list;
+                }
+                do {
+                    list.add(build());
+                } while (nextMember(']'));
+                return list;
+            } else if (b == '"') {
+                pos++;
+                return readString();
+            }
+            int start = pos;
+            skipLiteral();
+            String literal = ascii(start, pos);
+            switch (literal) {
+                case "true":
+                    return Boolean.TRUE;
+                case "false":
+                    return Boolean.FALSE;
+                case "null":
+                    return null;
+                default:
+                    try {
+                        if (literal.indexOf('.') < 0 && literal.indexOf('e') < 0 && literal.indexOf('E') < 0) {
+                            return Long.parseLong(literal);
+                        }
+                        return Double.parseDouble(literal);
+                    } catch (NumberFormatException e) {
+                        try {
+                            return Double.parseDouble(literal);
+                        } catch (NumberFormatException notNumber) {
+                            throw malformed("invalid literal " + literal);
+                        }
+                    }
+            }
+        }
+
+        /**
+         * Consumes the separator after a member or element.
+         *
+         * @return true if another member follows, false at the closing bracket.
+         */
+        private boolean nextMember(char close) {
+            int b = peek();
+            pos++;
+            if (b == ',') {
+                skipWhitespace();
+                return true;
+            }
+            if (b == close) {
+                return false;
+            }
+            pos--;
+            throw malformed("expected ',' or '" + close + "'");
+        }
+
+        /**
+         * Compares the raw key bytes with the searched keys, decoding only keys with escapes.
+         */
+        private int matchKey(int start, int end) {
+            boolean escaped = false;
+            for (int i = start; i < end; i++) {
+                if (buf.get(i) == '\\') {
+                    escaped = true;
+                    break;
+                }
+            }
+            if (escaped) {
+                int saved = pos;
+                pos = start;
+                String key = readString();
+                pos = saved;
+                for (int k = 0; k < keyNames.length; k++) {
+                    if (keyNames[k].equals(key)) {
+                        return k;
+                    }
+                }
+                return -1;
+            }
+            int length = end - start;
+            for (int k = 0; k < keyBytes.length; k++) {
+                byte[] candidate = keyBytes[k];
+                if (candidate.length != length) {
+                    continue;
+                }
+                int i = 0;
+                while (i < length && buf.get(start + i) == candidate[i]) {
+                    i++;
+                }
+                if (i == length) {
+                    return k;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Skips the rest of a string, pos is just after the opening quote.
+         *
+         * @return The index of the closing quote, pos is left after it.
+         */
+        private int skipString() {
+            while (true) {
+                byte b = buf.get(pos++);
+                if (b == '"') {
+                    return pos - 1;
+                }
+                if (b == '\\') {
+                    pos++;
+                }
+            }
+        }
+
+        /**
+         * Decodes the rest of a string, pos is just after the opening quote.
+         */
+        private String readString() {
+            StringBuilder value = null;
+            int segment = pos;
+            while (true) {
+                byte b = buf.get(pos);
+                if (b == '"') {
+                    String tail = utf8(segment, pos++);
+                    return value == null ? tail : value.append(tail).toString();
+                }
+                if (b != '\\') {
+                    pos++;
+                    continue;
+                }
+                if (value == null) {
+                    value = new StringBuilder();
+                }
+                value.append(utf8(segment, pos));
+                char escape = (char) buf.get(pos + 1);
+                pos += 2;
+                switch (escape) {
+                    case '"':
+                    case '\\':
+                    case '/':
+                        value.append(escape);
+                        break;
+                    case 'b':
+                        value.append('\b');
+                        break;
+                    case 'f':
+                        value.append('\f');
+                        break;
+                    case 'n':
+                        value.append('\n');
+                        break;
+                    case 'r':
+                        value.append('\r');
+                        break;
+                    case 't':
+                        value.append('\t');
+                        break;
+                    case 'u':
+                        try {
+                            value.append((char) Integer.parseInt(ascii(pos, pos + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw malformed("invalid unicode escape");
+                        }
+                        pos += 4;
+                        break;
+                    default:
+                        throw malformed("invalid escape \\" + escape);
+                }
+                segment = pos;
+            }
+        }
+
+        private void skipLiteral() {
+            int start = pos;
+            while (pos < buf.limit()) {
+                byte b = buf.get(pos);
+                if (b == ',' || b == '}' || b == ']' || isWhitespace(b)) {
+                    break;
+                }
+                pos++;
+            }
+            if (pos == start) {
+                throw malformed("expected a value");
+            }
+        }
+
+        private int peek() {
+            skipWhitespace();
+            return buf.get(pos);
+        }
+
+        private void skipWhitespace() {
+            while (pos < buf.limit() && isWhitespace(buf.get(pos))) {
+                pos++;
+            }
+        }
+
+        private void expect(char c) {
+            if (buf.get(pos) != c) {
+                throw malformed("expected '" + c + "'");
+            }
+            pos++;
+        }
+
+        private void expectAfterWhitespace(char c) {
+            skipWhitespace();
+            expect(c);
+            skipWhitespace();
+        }
+
+        private String utf8(int start, int end) {
+            byte[] bytes = new byte[end - start];
+            buf.get(start, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private String ascii(int start, int end) {
+            byte[] bytes = new byte[end - start];
+            buf.get(start, bytes);
+            return new String(bytes, StandardCharsets.US_ASCII);
+        }
+
+        private IllegalArgumentException malformed(String reason) {
+            return new IllegalArgumentException("Malformed JSON in " + file + " at byte " + (base + pos) + ": " + reason);
+        }
+    }
+}
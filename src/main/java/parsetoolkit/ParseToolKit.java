@@ -5,7 +5,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class ParseToolKit {
     private static final Logger logger = LoggerFactory.getLogger(ParseToolKit.class);
@@ -59,6 +64,47 @@ public class ParseToolKit {
         return results;
     }
 
+    /**
+     * Searches an NDJSON file, or a file holding one JSON array, for a key without loading the
+     * file, see {@link #dictSearch(Path, Collection, int)}.
+     *
+     * @param file The file to search.
+     * @param key  The key to search for.
+     * @return A lazy stream of the values associated with the key, in file order.
+     */
+    public static Stream<Object> dictSearch(Path file, String key) {
+        return dictSearch(file, Collections.singleton(key), MappedJsonSearch.DEFAULT_CHUNK_BYTES).map(Pair::getSecond);
+    }
+
+    /**
+     * Searches an NDJSON file, or a file holding one JSON array, for several keys in one pass,
+     * see {@link #dictSearch(Path, Collection, int)}.
+     */
+    public static Stream<Pair<String, Object>> dictSearch(Path file, Collection<String> keys) {
+        return dictSearch(file, keys, MappedJsonSearch.DEFAULT_CHUNK_BYTES);
+    }
+
+    /**
+     * Searches an NDJSON file, or a file holding one JSON array, for several keys in one pass.
+     * The file is memory-mapped, split at record boundaries and scanned in parallel chunks
+     * without building the full tree. The stream is lazy: only a few chunks are scanned ahead
+     * of the consumer, so close it (try-with-resources) when stopping early.
+     *
+     * @param file       The file to search.
+     * @param keys       The keys to search for.
+     * @param chunkBytes Approximate size of the chunks scanned in parallel.
+     * @return A lazy stream of key and value pairs, in file order.
+     */
+    public static Stream<Pair<String, Object>> dictSearch(Path file, Collection<String> keys, int chunkBytes) {
+        try {
+            MappedJsonSearch search = new MappedJsonSearch(file, keys, chunkBytes);
+            return StreamSupport.stream(search, false).onClose(search::close);
+        } catch (IOException e) {
+            logger.error("Failed to open {} for dict search: {}", file, e.getMessage());
+            throw new UncheckedIOException(e);
+        }
+    }
+
     /**
      * Compare two JSON-like structures (maps, lists) and output differences.
      *
@@ -0,0 +1,389 @@
+package selenium;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.interactions.Actions;
+import org.openqa.selenium.interactions.MoveTargetOutOfBoundsException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Queues interactions and runs them as few W3C Actions calls as possible. Every locator is
+ * resolved up front with a single script, then the steps are composed into one Actions
+ * sequence. A locator missing at that point (e.g. a dropdown opened by an earlier step)
+ * splits the sequence: the steps before it are performed, the element is waited for,
+ * and composing continues. Each element is scrolled into view inside the sequence before the
+ * pointer moves to it, and a segment whose element went stale is resumed with freshly
+ * resolved elements. Obtain one with {@link DriverAction#pipeline()}.
+ */
+public class ActionPipeline {
+    private static final Logger logger = LoggerFactory.getLogger(ActionPipeline.class);
+    /**
+     * Resolves the locators and counts trusted pointerup events in the page, which tells how
+     * far a failed Actions call got. pointerUps is null once the document was replaced.
+     */
+    private static final String JS_RESOLVE_ALL = DriverAction.JS_LOCATOR_FUNCS +
+        "var by = arguments[0], locators = arguments[1], resetCounter = arguments[2], out = [];\n" +
+        "var pointerUps = window.__supPointerUps === undefined ? null : window.__supPointerUps;\n" +
+        "if (window.__supPointerUps === undefined) {\n" +
+        "  window.addEventListener('pointerup', function (e) { if (e.isTrusted) window.__supPointerUps++; }, true);\n" +
+        "  window.__supPointerUps = 0;\n" +
+        "}\n" +
+        "if (resetCounter) { window.__supPointerUps = 0; pointerUps = 0; }\n" +
+        "for (var i = 0; i < locators.length; i++) {\n" +
+        "  try { out.push(locators[i] === null ? null : __sup_find(by, locators[i], document)); }\n" +
+        "  catch (err) { out.push(null); }\n" +
+        "}\n" +
+        "return {elements: out, pointerUps: pointerUps};";
+
+    public enum StepType { CLICK, DOUBLE_CLICK, RIGHT_CLICK, INPUT, PAUSE }
+
+    private static class Step {
+        private final StepType type;
+        private final String locator;
+        private final String keys;
+        private final long pauseMillis;
+
+        Step(StepType type, String locator, String keys, long pauseMillis) {
+            this.type = type;
+            this.locator = locator;
+            this.keys = keys;
+            this.pauseMillis = pauseMillis;
+        }
+    }
+
+    private static class Resolution {
+        private final List<Object> elements;
+        private final Long pointerUps;
+
+        Resolution(List<Object> elements, Long pointerUps) {
+            this.elements = elements;
+            this.pointerUps = pointerUps;
+        }
+    }
+
+    private final DriverAction driverAction;
+    private final List<Step> steps = new ArrayList<>();
+    /** Pointerup events of the segments performed so far in the current run. */
+    private long performedPointerUps = 0;
+
+    ActionPipeline(DriverAction driverAction) {
+        this.driverAction = driverAction;
+    }
+
+    public ActionPipeline click(String locator) {
+        steps.add(new Step(StepType.CLICK, locator, null, 0));
+        return this;
+    }
+
+    public ActionPipeline doubleClick(String locator) {
+        steps.add(new Step(StepType.DOUBLE_CLICK, locator, null, 0));
+        return this;
+    }
+
+    public ActionPipeline rightClick(String locator) {
+        steps.add(new Step(StepType.RIGHT_CLICK, locator, null, 0));
+        return this;
+    }
+
+    /**
+     * Clicks the element to focus it, then types the keys.
+     */
+    public ActionPipeline input(String locator, String keys) {
+        steps.add(new Step(StepType.INPUT, locator, keys, 0));
+        return this;
+    }
+
+    /**
+     * Pauses inside the Actions sequence, the browser waits, not the Java thread.
+     */
+    public ActionPipeline pause(long millis) {
+        steps.add(new Step(StepType.PAUSE, null, null, millis));
+        return this;
+    }
+
+    /**
+     * Resolves every locator and performs the queued steps.
+     *
+     * @return Per-step results and timings, the run stops at the first failing segment.
+     */
+    public PipelineResult run() {
+        WebDriver driver = driverAction.getDriver();
+        long startNanos = System.nanoTime();
+        List<String> locators = new ArrayList<>();
+        for (Step step : steps) {
+            locators.add(step.locator);
+        }
+        Resolution resolution = resolve(driver, locators, true);
+        long resolveMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        performedPointerUps = 0;
+
+        List<StepResult> results = new ArrayList<>();
+        List<Integer> segmentSteps = new ArrayList<>();
+        Map<Integer, WebElement> elements = new HashMap<>();
+        int segment = 0;
+        String failure = null;
+        for (int i = 0; i < steps.size(); i++) {
+            Step step = steps.get(i);
+            boolean resolvedUpFront = true;
+            if (step.type != StepType.PAUSE) {
+                Object candidate = resolution.elements.get(i);
+                if (candidate instanceof WebElement) {
+                    elements.put(i, (WebElement) candidate);
+                } else {
+                    // The element depends on earlier steps, perform them before waiting for it
+                    resolvedUpFront = false;
+                    failure = performSegment(driver, segment, segmentSteps, elements, results);
+                    if (failure != null) {
+                        break;
+                    }
+                    segment++;
+                    try {
+                        elements.put(i, driverAction.waitFor(step.locator));
+                    } catch (Exception e) {
+                        failure = e.getMessage();
+                        results.add(new StepResult(i, step.type, step.locator, false, segment, 0, false, failure));
+                        break;
+                    }
+                }
+            }
+            results.add(new StepResult(i, step.type, step.locator, resolvedUpFront, segment, 0, false, null));
+            segmentSteps.add(i);
+        }
+        if (failure == null) {
+            failure = performSegment(driver, segment, segmentSteps, elements, results);
+        }
+        // Clicks may have opened windows or replaced the document
+        driverAction.invalidateWindowHandles();
+        driverAction.markDocumentUnverified();
+        long totalMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        if (failure != null) {
+            driverAction.getTrace().recordFailure(ActionTrace.ActionType.PIPELINE, null, startNanos,
+                    WebDriverException.class);
+            logger.error("Action pipeline failed after {} ms: {}", totalMillis, failure);
+        } else {
+            driverAction.getTrace().record(ActionTrace.ActionType.PIPELINE, null, startNanos);
+        }
+        return new PipelineResult(results, resolveMillis, totalMillis, failure == null);
+    }
+
+    /**
+     * Performs the steps queued in the current segment and fills in their results. If an
+     * element went stale or out of bounds mid-segment, the steps that already ran are
+     * identified through the in-page pointerup counter, the remaining elements are resolved
+     * again and the rest of the segment is performed once more, so no step is replayed.
+     *
+     * @return null on success, the error message otherwise.
+     */
+    private String performSegment(WebDriver driver, int segment, List<Integer> segmentSteps,
+            Map<Integer, WebElement> elements, List<StepResult> results) {
+        if (segmentSteps.isEmpty()) {
+            return null;
+        }
+        long startNanos = System.nanoTime();
+        String error = null;
+        try {
+            try {
+                compose(driver, segmentSteps, elements).perform();
+            } catch (StaleElementReferenceException | MoveTargetOutOfBoundsException e) {
+                List<Integer> remaining = resumeAfter(driver, e, segmentSteps, elements);
+                logger.warn("Action pipeline segment {} failed with {}, resuming at step {}", segment,
+                        e.getClass().getSimpleName(), remaining.isEmpty() ? "end" : remaining.get(0));
+                if (!remaining.isEmpty()) {
+                    compose(driver, remaining, elements).perform();
+                }
+            }
+            for (int index : segmentSteps) {
+                performedPointerUps += pointerUps(steps.get(index).type);
+            }
+        } catch (Exception e) {
+            error = e.getMessage();
+        }
+        long segmentMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        for (int index : segmentSteps) {
+            StepResult pending = results.get(index);
+            results.set(index, new StepResult(pending.index, pending.type, pending.locator,
+                    pending.resolvedUpFront, segment, segmentMillis, error == null, error));
+        }
+        segmentSteps.clear();
+        return error;
+    }
+
+    /**
+     * Composes one Actions sequence, every element is scrolled into view before the pointer
+     * moves to it.
+     */
+    private Actions compose(WebDriver driver, List<Integer> stepIndexes, Map<Integer, WebElement> elements) {
+        Actions actions = new Actions(driver);
+        for (int index : stepIndexes) {
+            Step step = steps.get(index);
+            WebElement element = elements.get(index);
+            if (element != null) {
+                actions.scrollToElement(element);
+            }
+            switch (step.type) {
+                case CLICK:
+                    actions.click(element);
+                    break;
+                case DOUBLE_CLICK:
+                    actions.doubleClick(element);
+                    break;
+                case RIGHT_CLICK:
+                    actions.contextClick(element);
+                    break;
+                case INPUT:
+                    actions.click(element).sendKeys(step.keys);
+                    break;
+                case PAUSE:
+                    actions.pause(Duration.ofMillis(step.pauseMillis));
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown step type: " + step.type);
+            }
+        }
+        return actions;
+    }
+
+    /**
+     * Works out which steps of a failed segment already ran and resolves the elements of
+     * the others again.
+     *
+     * @return The steps left to perform.
+     * @throws WebDriverException the original failure if the progress is unknown (the document
+     *         was replaced, a double click ran halfway) or an element is gone.
+     */
+    private List<Integer> resumeAfter(WebDriver driver, WebDriverException failure, List<Integer> segmentSteps,
+            Map<Integer, WebElement> elements) {
+        List<String> locators = new ArrayList<>();
+        for (int index : segmentSteps) {
+            locators.add(steps.get(index).locator);
+        }
+        Resolution resolution = resolve(driver, locators, false);
+        if (resolution.pointerUps == null) {
+            throw failure;
+        }
+        long done = resolution.pointerUps - performedPointerUps;
+        int first = 0;
+        while (first < segmentSteps.size()) {
+            int needed = pointerUps(steps.get(segmentSteps.get(first)).type);
+            if (done < needed) {
+                break;
+            }
+            done -= needed;
+            first++;
+        }
+        if (done != 0) {
+            throw failure;
+        }
+        for (int k = first; k < segmentSteps.size(); k++) {
+            int index = segmentSteps.get(k);
+            if (steps.get(index).type == StepType.PAUSE) {
+                continue;
+            }
+            Object candidate = resolution.elements.get(k);
+            if (!(candidate instanceof WebElement)) {
+                throw failure;
+            }
+            elements.put(index, (WebElement) candidate);
+        }
+        return new ArrayList<>(segmentSteps.subList(first, segmentSteps.size()));
+    }
+
+    private static int pointerUps(StepType type) {
+        switch (type) {
+            case DOUBLE_CLICK:
+                return 2;
+            case PAUSE:
+                return 0;
+            default:
+                return 1;
+        }
+    }
+
+    /**
+     * Resolves the locators with one script, null locators and missing elements map to null.
+     *
+     * @param resetCounter Whether to restart the pointerup counter, at the start of a run.
+     */
+    @SuppressWarnings("unchecked")
+    private Resolution resolve(WebDriver driver, List<String> locators, boolean resetCounter) {
+        Map<String, Object> result = (Map<String, Object>) ((JavascriptExecutor) driver)
+                .executeScript(JS_RESOLVE_ALL, driverAction.getInnerBy(), locators, resetCounter);
+        Object pointerUps = result.get("pointerUps");
+        return new Resolution((List<Object>) result.get("elements"),
+                pointerUps instanceof Number ? ((Number) pointerUps).longValue() : null);
+    }
+
+    /**
+     * Outcome of a single step. Steps of the same segment were performed by one Actions
+     * call, so they share its duration.
+     */
+    public static class StepResult {
+        private final int index;
+        private final StepType type;
+        private final String locator;
+        private final boolean resolvedUpFront;
+        private final int segment;
+        private final long segmentMillis;
+        private final boolean success;
+        private final String error;
+
+        StepResult(int index, StepType type, String locator, boolean resolvedUpFront, int segment,
+                long segmentMillis, boolean success, String error) {
+            this.index = index;
+            this.type = type;
+            this.locator = locator;
+            this.resolvedUpFront = resolvedUpFront;
+            this.segment = segment;
+            this.segmentMillis = segmentMillis;
+            this.success = success;
+            this.error = error;
+        }
+
+        public int getIndex() { return index; }
+        public StepType getType() { return type; }
+        public String getLocator() { return locator; }
+        public boolean isResolvedUpFront() { return resolvedUpFront; }
+        public int getSegment() { return segment; }
+        public long getSegmentMillis() { return segmentMillis; }
+        public boolean isSuccess() { return success; }
+        public String getError() { return error; }
+
+        @Override
+        public String toString() {
+            return String.format("Step{%d %s %s, segment=%d, %d ms, %s}", index, type,
+                    locator == null ? "" : locator, segment, segmentMillis, success ? "ok" : "failed: " + error);
+        }
+    }
+
+    public static class PipelineResult {
+        private final List<StepResult> steps;
+        private final long resolveMillis;
+        private final long totalMillis;
+        private final boolean success;
+
+        PipelineResult(List<StepResult> steps, long resolveMillis, long totalMillis, boolean success) {
+            this.steps = Collections.unmodifiableList(steps);
+            this.resolveMillis = resolveMillis;
+            this.totalMillis = totalMillis;
+            this.success = success;
+        }
+
+        public List<StepResult> getSteps() { return steps; }
+        /** Time spent resolving every locator up front. */
+        public long getResolveMillis() { return resolveMillis; }
+        public long getTotalMillis() { return totalMillis; }
+        public boolean isSuccess() { return success; }
+    }
+}
@@ -0,0 +1,242 @@
+package selenium;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Always-on trace of the actions run against one driver. Every action writes a fixed-size
+ * record into preallocated primitive arrays: no allocation, no locking and no string
+ * formatting happen while recording. Locators and error types are interned into numeric
+ * ids, the strings are only looked up again when the trace is dumped, on error or on demand.
+ * URLs and capture names are unbounded, they are kept by reference in the record's slot
+ * instead and are released when the slot is overwritten.
+ *
+ * Writers claim a slot with one atomic increment. The slot's sequence number is published
+ * last, so a concurrent dump skips records that are still being written.
+ */
+public class ActionTrace {
+    public static final int DEFAULT_CAPACITY = 1024;
+    private static final Map<WebDriver, ActionTrace> TRACES = Collections.synchronizedMap(new WeakHashMap<>());
+
+    public enum ActionType {
+        WAIT, CLICK, DOUBLE_CLICK, RIGHT_CLICK, GET_ATTRIBUTE, BULK_READ, EXTRACT, INPUT, SLIDE,
+        SCROLL, HARVEST, NAVIGATE, WINDOW_SWITCH, FRAME_SWITCH, ADD_COOKIES, PIPELINE, CAPTURE
+    }
+
+    public enum Outcome { OK, FAILED }
+
+    private static final ActionType[] TYPES = ActionType.values();
+
+    private final int mask;
+    private final AtomicLong cursor = new AtomicLong();
+    /** Sequence number + 1 of the record in each slot, 0 while the slot is empty or being written. */
+    private final AtomicLongArray published;
+    private final long[] startNanos;
+    private final long[] endNanos;
+    private final byte[] types;
+    private final int[] locatorIds;
+    /** Subject of the record when it is not interned, see {@link #isInterned(ActionType)}. */
+    private final String[] details;
+    /** 0 for success, otherwise the interned id + 1 of the error class name, -1 once the table is full. */
+    private final int[] errorIds;
+
+    private final Map<String, Integer> symbolIds = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<String> symbols;
+    private final AtomicLong nextSymbol = new AtomicLong();
+    private static final int SYMBOL_LIMIT = 4096;
+
+    /**
+     * @param capacity Number of records kept, rounded up to a power of two.
+     */
+    public ActionTrace(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.mask = size - 1;
+        this.published = new AtomicLongArray(size);
+        this.startNanos = new long[size];
+        this.endNanos = new long[size];
+        this.types = new byte[size];
+        this.locatorIds = new int[size];
+        this.details = new String[size];
+        this.errorIds = new int[size];
+        this.symbols = new AtomicReferenceArray<>(SYMBOL_LIMIT);
+    }
+
+    /**
+     * @return The trace shared by every DriverAction bound to the driver.
+     */
+    public static ActionTrace forDriver(WebDriver driver) {
+        return TRACES.computeIfAbsent(driver, d -> new ActionTrace(DEFAULT_CAPACITY));
+    }
+
+    /**
+     * Records a successful action.
+     */
+    public void record(ActionType type, String locator, long startNanos) {
+        write(type, locator, startNanos, System.nanoTime(), 0);
+    }
+
+    /**
+     * Records a failed action.
+     */
+    public void recordFailure(ActionType type, String locator, long startNanos, Throwable error) {
+        recordFailure(type, locator, startNanos, error.getClass());
+    }
+
+    /**
+     * Records a failed action whose exception was already reduced to a message.
+     */
+    public void recordFailure(ActionType type, String locator, long startNanos, Class<?> errorType) {
+        int errorId = intern(errorType.getName());
+        write(type, locator, startNanos, System.nanoTime(), errorId < 0 ? -1 : errorId + 1);
+    }
+
+    /**
+     * @return Whether the subjects of the type come from a small set, navigation URLs and
+     *         capture names would fill the symbol table.
+     */
+    private static boolean isInterned(ActionType type) {
+        return type != ActionType.NAVIGATE && type != ActionType.CAPTURE;
+    }
+
+    private void write(ActionType type, String subject, long start, long end, int errorId) {
+        boolean interned = isInterned(type);
+        int locatorId = interned ? intern(subject) : -1;
+        long sequence = cursor.getAndIncrement();
+        int slot = (int) (sequence & mask);
+        published.set(slot, 0);
+        startNanos[slot] = start;
+        endNanos[slot] = end;
+        types[slot] = (byte) type.ordinal();
+        locatorIds[slot] = locatorId;
+        details[slot] = interned ? null : subject;
+        errorIds[slot] = errorId;
+        published.set(slot, sequence + 1);
+    }
+
+    /**
+     * Maps a string to a stable id, -1 for null or once the symbol table is full. Lock-free:
+     * two threads interning the same new string both claim an id, the loser's id stays unused.
+     */
+    private int intern(String value) {
+        if (value == null) {
+            return -1;
+        }
+        Integer id = symbolIds.get(value);
+        if (id != null) {
+            return id;
+        }
+        if (nextSymbol.get() >= SYMBOL_LIMIT) {
+            return -1;
+        }
+        long next = nextSymbol.getAndIncrement();
+        if (next >= SYMBOL_LIMIT) {
+            return -1;
+        }
+        // The symbol is stored before the id is published, a reader never sees an empty id
+        symbols.set((int) next, value);
+        Integer existing = symbolIds.putIfAbsent(value, (int) next);
+        return existing != null ? existing : (int) next;
+    }
+
+    private String symbol(int id) {
+        return id < 0 ? null : symbols.get(id);
+    }
+
+    private String errorName(int errorId) {
+        if (errorId == 0) {
+            return null;
+        }
+        return errorId < 0 ? "unknown error" : symbol(errorId - 1);
+    }
+
+    /**
+     * One decoded trace record.
+     */
+    public static class Record {
+        private final long sequence;
+        private final ActionType type;
+        private final String locator;
+        private final long startNanos;
+        private final long endNanos;
+        private final Outcome outcome;
+        private final String error;
+
+        Record(long sequence, ActionType type, String locator, long startNanos, long endNanos, String error) {
+            this.sequence = sequence;
+            this.type = type;
+            this.locator = locator;
+            this.startNanos = startNanos;
+            this.endNanos = endNanos;
+            this.outcome = error == null ? Outcome.OK : Outcome.FAILED;
+            this.error = error;
+        }
+
+        public long getSequence() { return sequence; }
+        public ActionType getType() { return type; }
+        public String getLocator() { return locator; }
+        public long getStartNanos() { return startNanos; }
+        public long getEndNanos() { return endNanos; }
+        public long getDurationMicros() { return TimeUnit.NANOSECONDS.toMicros(endNanos - startNanos); }
+        public Outcome getOutcome() { return outcome; }
+        public String getError() { return error; }
+
+        @Override
+        public String toString() {
+            return String.format("#%d %s %s %d us %s", sequence, type, locator == null ? "-" : locator,
+                    getDurationMicros(), outcome == Outcome.OK ? "ok" : "failed: " + error);
+        }
+    }
+
+    /**
+     * Decodes the most recent records, oldest first.
+     *
+     * @param limit Maximum number of records to return.
+     */
+    public List<Record> snapshot(int limit) {
+        long end = cursor.get();
+        long begin = Math.max(0, end - Math.min(limit, mask + 1));
+        List<Record> records = new ArrayList<>();
+        for (long sequence = begin; sequence < end; sequence++) {
+            int slot = (int) (sequence & mask);
+            if (published.get(slot) != sequence + 1) {
+                // Still being written, or already overwritten by a newer record
+                continue;
+            }
+            String detail = details[slot];
+            Record record = new Record(sequence, TYPES[types[slot]], detail != null ? detail : symbol(locatorIds[slot]),
+                    startNanos[slot], endNanos[slot], errorName(errorIds[slot]));
+            if (published.get(slot) == sequence + 1) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * @return The most recent records formatted one per line, oldest first.
+     */
+    public String dump(int limit) {
+        StringBuilder out = new StringBuilder();
+        for (Record record : snapshot(limit)) {
+            out.append(record).append('\n');
+        }
+        return out.toString();
+    }
+
+    /**
+     * @return Total number of records written since the trace was created.
+     */
+    public long getRecordCount() {
+        return cursor.get();
+    }
+}
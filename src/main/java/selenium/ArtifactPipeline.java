@@ -0,0 +1,415 @@
+package selenium;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LongSummaryStatistics;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.openqa.selenium.TimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Background pipeline turning raw captures (base64 screenshots, page source, MHTML) into
+ * files: decode, optional downscale/recompression, write. The driver thread only pays for the
+ * capture itself, see DriverAction's capture methods. The pipeline is bounded: once
+ * queueCapacity artifacts are waiting, submitting blocks up to submitTimeoutSeconds so that a
+ * slow disk slows the flow down instead of filling the heap with screenshots.
+ */
+public class ArtifactPipeline implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ArtifactPipeline.class);
+    static final String[] STAGES = {"capture", "queue", "decode", "transform", "write"};
+    /** Quality of downscaled JPEGs when jpegQuality is not set. */
+    private static final float DEFAULT_JPEG_QUALITY = 0.8f;
+
+    // Default Pipeline Parameters
+    private static class PipelineDefaultParam {
+        int WORKERS = 2;
+        int QUEUE_CAPACITY = 16;
+        long SUBMIT_TIMEOUT_SECONDS = 30;
+        String OUTPUT_DIR = "artifacts";
+        int MAX_WIDTH = 0;
+        /** Null keeps captured JPEGs as they are unless they are downscaled. */
+        Float JPEG_QUALITY = null;
+
+        PipelineDefaultParam() {
+        }
+
+        /**
+         * Constructor that initializes parameters based on the provided map.
+         *
+         * @param params Map containing pipeline parameters.
+         */
+        PipelineDefaultParam(Map<String, String> params) {
+            if (params.containsKey("workers"))
+                this.WORKERS = Integer.parseInt(params.get("workers"));
+            if (params.containsKey("queueCapacity"))
+                this.QUEUE_CAPACITY = Integer.parseInt(params.get("queueCapacity"));
+            if (params.containsKey("submitTimeoutSeconds"))
+                this.SUBMIT_TIMEOUT_SECONDS = Long.parseLong(params.get("submitTimeoutSeconds"));
+            if (params.containsKey("outputDir"))
+                this.OUTPUT_DIR = params.get("outputDir");
+            if (params.containsKey("maxWidth"))
+                this.MAX_WIDTH = Integer.parseInt(params.get("maxWidth"));
+            if (params.containsKey("jpegQuality"))
+                this.JPEG_QUALITY = Float.parseFloat(params.get("jpegQuality"));
+            if (this.WORKERS < 1 || this.QUEUE_CAPACITY < 0) {
+                throw new IllegalArgumentException("Pipeline sizes must satisfy workers >= 1 and queueCapacity >= 0");
+            }
+        }
+    }
+
+    public enum Kind {
+        SCREENSHOT_PNG("png", true), SCREENSHOT_JPEG("jpg", true), SCREENSHOT_WEBP("webp", true),
+        PAGE_SOURCE("html", false), MHTML("mhtml", false);
+
+        private final String extension;
+        private final boolean base64;
+
+        Kind(String extension, boolean base64) {
+            this.extension = extension;
+            this.base64 = base64;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    /**
+     * A written artifact and the milliseconds spent in each stage.
+     */
+    public static class Artifact {
+        private final Kind kind;
+        private final Path path;
+        private final long bytes;
+        private final Map<String, Long> stageMillis;
+
+        Artifact(Kind kind, Path path, long bytes, Map<String, Long> stageMillis) {
+            this.kind = kind;
+            this.path = path;
+            this.bytes = bytes;
+            this.stageMillis = Collections.unmodifiableMap(stageMillis);
+        }
+
+        public Kind getKind() { return kind; }
+        public Path getPath() { return path; }
+        public long getBytes() { return bytes; }
+        public Map<String, Long> getStageMillis() { return stageMillis; }
+
+        @Override
+        public String toString() {
+            return String.format("Artifact{%s, %d bytes, stages=%s}", path, bytes, stageMillis);
+        }
+    }
+
+    private final PipelineDefaultParam params;
+    private final ExecutorService workers;
+    /** One permit per artifact waiting or being processed. */
+    private final Semaphore slots;
+    private final Map<String, LongSummaryStatistics> stageStats = new LinkedHashMap<>();
+    private static final AtomicInteger POOL_INDEX = new AtomicInteger();
+
+    public ArtifactPipeline() {
+        this(Map.of());
+    }
+
+    /**
+     * Creates a pipeline, pass a map of parameters to override the defaults:
+     * workers, queueCapacity, submitTimeoutSeconds, outputDir, maxWidth (0 keeps the size),
+     * jpegQuality (0 to 1, re-encodes every JPEG screenshot; unset, only downscaled ones are
+     * re-encoded, with quality 0.8).
+     *
+     * @param parameters Map containing pipeline parameters.
+     */
+    public ArtifactPipeline(Map<String, String> parameters) {
+        this.params = new PipelineDefaultParam(parameters);
+        this.slots = new Semaphore(params.WORKERS + params.QUEUE_CAPACITY);
+        int poolIndex = POOL_INDEX.incrementAndGet();
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(params.WORKERS, r -> {
+            Thread thread = new Thread(r, "artifact-pipeline-" + poolIndex + "-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (String stage : STAGES) {
+            stageStats.put(stage, new LongSummaryStatistics());
+        }
+    }
+
+    /**
+     * Queues a raw capture, blocking while the pipeline is full.
+     *
+     * @param kind         What the payload is.
+     * @param name         File name without extension, a suffix -1, -2... is added when a file
+     *                     with the same sanitized name already exists.
+     * @param payload      Base64 for screenshots, text otherwise.
+     * @param captureNanos Time the driver spent producing the payload.
+     * @return A future completed once the artifact is on disk.
+     * @throws TimeoutException if the pipeline stayed full for submitTimeoutSeconds.
+     */
+    public CompletableFuture<Artifact> submit(Kind kind, String name, String payload, long captureNanos) {
+        try {
+            if (!slots.tryAcquire(params.SUBMIT_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new TimeoutException("Artifact pipeline still full after "
+                        + params.SUBMIT_TIMEOUT_SECONDS + " seconds");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Thread interrupted: {}", e.getMessage());
+            throw new RuntimeException(e);
+        }
+        long queuedNanos = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return process(kind, name, payload, captureNanos, queuedNanos);
+                } finally {
+                    slots.release();
+                }
+            }, workers);
+        } catch (RuntimeException e) {
+            slots.release();
+            throw e;
+        }
+    }
+
+    private Artifact process(Kind kind, String name, String payload, long captureNanos, long queuedNanos) {
+        Map<String, Long> timings = new LinkedHashMap<>();
+        timings.put("capture", TimeUnit.NANOSECONDS.toMillis(captureNanos));
+        long stageStart = System.nanoTime();
+        timings.put("queue", TimeUnit.NANOSECONDS.toMillis(stageStart - queuedNanos));
+        try {
+            byte[] bytes = kind.base64 ? Base64.getMimeDecoder().decode(payload)
+                    : payload.getBytes(StandardCharsets.UTF_8);
+            stageStart = stage(timings, "decode", stageStart);
+            bytes = transform(kind, bytes);
+            stageStart = stage(timings, "transform", stageStart);
+            Path directory = Paths.get(params.OUTPUT_DIR);
+            Files.createDirectories(directory);
+            Path path = writeNew(directory, name.replaceAll("[^A-Za-z0-9._-]", "_"), kind.extension, bytes);
+            stage(timings, "write", stageStart);
+            record(timings);
+            Artifact artifact = new Artifact(kind, path, bytes.length, timings);
+            logger.info("Artifact written: {}", artifact);
+            return artifact;
+        } catch (IOException e) {
+            logger.error("Failed to write artifact {}: {}", name, e.getMessage());
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Writes the bytes to a file that does not exist yet, concurrent workers never overwrite
+     * each other's artifacts or the ones of an earlier run.
+     */
+    private static Path writeNew(Path directory, String baseName, String extension, byte[] bytes) throws IOException {
+        for (int suffix = 0; ; suffix++) {
+            Path path = directory.resolve(suffix == 0 ? baseName + "." + extension
+                    : baseName + "-" + suffix + "." + extension);
+            try {
+                Files.write(path, bytes, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                return path;
+            } catch (FileAlreadyExistsException e) {
+                // Taken, try the next suffix
+            }
+        }
+    }
+
+    private static long stage(Map<String, Long> timings, String stage, long stageStart) {
+        long now = System.nanoTime();
+        timings.put(stage, TimeUnit.NANOSECONDS.toMillis(now - stageStart));
+        return now;
+    }
+
+    private synchronized void record(Map<String, Long> timings) {
+        for (Map.Entry<String, Long> entry : timings.entrySet()) {
+            stageStats.get(entry.getKey()).accept(entry.getValue());
+        }
+    }
+
+    /**
+     * Downscales screenshots wider than maxWidth and re-encodes JPEGs with jpegQuality, every
+     * JPEG when jpegQuality is set, downscaled ones only otherwise. WebP has no ImageIO codec
+     * and is written as captured.
+     */
+    private byte[] transform(Kind kind, byte[] bytes) throws IOException {
+        boolean reencodeJpeg = kind == Kind.SCREENSHOT_JPEG && params.JPEG_QUALITY != null;
+        if ((params.MAX_WIDTH <= 0 && !reencodeJpeg) || (kind != Kind.SCREENSHOT_PNG && kind != Kind.SCREENSHOT_JPEG)) {
+            return bytes;
+        }
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(bytes));
+        if (image == null) {
+            return bytes;
+        }
+        boolean downscale = params.MAX_WIDTH > 0 && image.getWidth() > params.MAX_WIDTH;
+        if (!downscale && !reencodeJpeg) {
+            return bytes;
+        }
+        BufferedImage output = downscale ? downscale(image, kind) : image;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (kind == Kind.SCREENSHOT_PNG) {
+            ImageIO.write(output, "png", out);
+            return out.toByteArray();
+        }
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            ImageWriteParam writeParam = writer.getDefaultWriteParam();
+            writeParam.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            writeParam.setCompressionQuality(params.JPEG_QUALITY != null ? params.JPEG_QUALITY : DEFAULT_JPEG_QUALITY);
+            writer.setOutput(stream);
+            writer.write(null, new IIOImage(output, null, null), writeParam);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private BufferedImage downscale(BufferedImage image, Kind kind) {
+        int height = Math.max(1, (int) Math.round((double) image.getHeight() * params.MAX_WIDTH / image.getWidth()));
+        int type = kind == Kind.SCREENSHOT_JPEG ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+        BufferedImage scaled = new BufferedImage(params.MAX_WIDTH, height, type);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(image, 0, 0, params.MAX_WIDTH, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    /**
+     * @return Statistics in milliseconds per stage over every artifact written so far.
+     */
+    public synchronized Map<String, LongSummaryStatistics> getStageStats() {
+        Map<String, LongSummaryStatistics> copy = new LinkedHashMap<>();
+        for (Map.Entry<String, LongSummaryStatistics> entry : stageStats.entrySet()) {
+            LongSummaryStatistics stats = new LongSummaryStatistics();
+            stats.combine(entry.getValue());
+            copy.put(entry.getKey(), stats);
+        }
+        return copy;
+    }
+
+    /**
+     * @return Number of artifacts waiting or being processed.
+     */
+    public int getPending() {
+        return params.WORKERS + params.QUEUE_CAPACITY - slots.availablePermits();
+    }
+
+    /**
+     * Stops accepting artifacts and waits for the queued ones to be written.
+     */
+    @Override
+    public void close() {
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(params.SUBMIT_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                logger.warn("Artifact pipeline closed with {} artifacts still pending", getPending());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("Artifact pipeline closed, stage timings: {}", getStageStats());
+    }
+
+    /**
+     * Screenshot options, applied by CDP on Chrome. Other browsers capture a PNG of the
+     * viewport through TakesScreenshot.
+     */
+    public static class ScreenshotOptions {
+        private String format = "png";
+        private Integer quality = null;
+        private double[] clip = null;
+        private String clipLocator = null;
+        private boolean fullPage = false;
+
+        /**
+         * @param format "png", "jpeg" or "webp".
+         */
+        public ScreenshotOptions format(String format) {
+            this.format = format.toLowerCase();
+            return this;
+        }
+
+        /**
+         * @param quality Compression quality from 0 to 100, jpeg and webp only.
+         */
+        public ScreenshotOptions quality(int quality) {
+            this.quality = quality;
+            return this;
+        }
+
+        /**
+         * Captures only the given rectangle of the page, in CSS pixels.
+         */
+        public ScreenshotOptions clip(double x, double y, double width, double height) {
+            this.clip = new double[] {x, y, width, height};
+            return this;
+        }
+
+        /**
+         * Captures only the element matching the locator, in the current frame. Elements of
+         * cross-origin frames cannot be clipped.
+         */
+        public ScreenshotOptions clipElement(String locator) {
+            this.clipLocator = locator;
+            return this;
+        }
+
+        /**
+         * Captures beyond the viewport, the whole content of the page unless a clip is set.
+         */
+        public ScreenshotOptions fullPage(boolean fullPage) {
+            this.fullPage = fullPage;
+            return this;
+        }
+
+        public String getFormat() { return format; }
+        public Integer getQuality() { return quality; }
+        public double[] getClip() { return clip; }
+        public String getClipLocator() { return clipLocator; }
+        public boolean isFullPage() { return fullPage; }
+
+        Kind kind() {
+            switch (format) {
+                case "png":
+                    return Kind.SCREENSHOT_PNG;
+                case "jpeg":
+                case "jpg":
+                    return Kind.SCREENSHOT_JPEG;
+                case "webp":
+                    return Kind.SCREENSHOT_WEBP;
+                default:
+                    throw new IllegalArgumentException("Unsupported screenshot format: " + format);
+            }
+        }
+    }
+}
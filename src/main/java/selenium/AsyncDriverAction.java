@@ -0,0 +1,155 @@
+package selenium;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Asynchronous facade over one {@link DriverAction}. Every call returns a CompletableFuture;
+ * calls on the same facade run one after another because a WebDriver session cannot serve
+ * concurrent commands, while facades bound to different drivers run in parallel.
+ *
+ * Tasks run on virtual threads when the JVM provides them (Java 21+), so one orchestrator
+ * can drive dozens of browsers without a platform thread per browser. Older JVMs fall back
+ * to a cached pool of daemon threads.
+ */
+public class AsyncDriverAction {
+    private static final Logger logger = LoggerFactory.getLogger(AsyncDriverAction.class);
+    private static final ExecutorService SHARED_EXECUTOR = createExecutor();
+
+    private final DriverAction driverAction;
+    private final ExecutorService executor;
+    /** Completion of the last queued task, new tasks are chained after it. */
+    private CompletableFuture<?> tail = CompletableFuture.completedFuture(null);
+
+    /**
+     * @param driver   The driver this facade is bound to.
+     * @param inner_by The locator strategy, see {@link DriverAction}.
+     */
+    public AsyncDriverAction(WebDriver driver, String inner_by) {
+        this(new DriverAction(driver, inner_by), SHARED_EXECUTOR);
+    }
+
+    /**
+     * @param driverAction A DriverAction configured for this facade only, e.g. with its own wait time.
+     * @param executor     Executor the tasks run on.
+     */
+    public AsyncDriverAction(DriverAction driverAction, ExecutorService executor) {
+        this.driverAction = driverAction;
+        this.executor = executor;
+    }
+
+    private static ExecutorService createExecutor() {
+        try {
+            ExecutorService virtual = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            logger.info("AsyncDriverAction runs on virtual threads");
+            return virtual;
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger threadIndex = new AtomicInteger();
+            return Executors.newCachedThreadPool(r -> {
+                Thread thread = new Thread(r, "async-driver-action-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * @return The executor shared by facades created without an explicit executor.
+     */
+    public static ExecutorService sharedExecutor() {
+        return SHARED_EXECUTOR;
+    }
+
+    /**
+     * Queues an arbitrary flow against this facade's DriverAction.
+     *
+     * @param flow The flow to run, it has exclusive use of the driver while it runs.
+     * @return A future completed with the flow's result.
+     */
+    public synchronized <T> CompletableFuture<T> submit(Function<DriverAction, T> flow) {
+        // A failed task must not block the ones queued after it
+        CompletableFuture<T> next = tail.handle((ignored, error) -> null)
+                .thenApplyAsync(ignored -> flow.apply(driverAction), executor);
+        tail = next;
+        return next;
+    }
+
+    public CompletableFuture<List<String>> clickElement(String locator, String elementName) {
+        return submit(action -> action.clickElement(locator, elementName));
+    }
+
+    public CompletableFuture<List<String>> doubleClick(String locator, String elementName) {
+        return submit(action -> action.doubleClick(locator, elementName));
+    }
+
+    public CompletableFuture<List<String>> rightClick(String locator, String elementName) {
+        return submit(action -> action.rightClick(locator, elementName));
+    }
+
+    public CompletableFuture<String> getElementAttribute(String locator, String attribute) {
+        return submit(action -> action.getElementAttribute(locator, attribute));
+    }
+
+    public CompletableFuture<Map<String, String>> getElementsAttribute(Map<String, String> locators, String attribute) {
+        return submit(action -> action.getElementsAttribute(locators, attribute));
+    }
+
+    /**
+     * The missing set is filled before the future completes, read it once the future is done.
+     */
+    public CompletableFuture<Map<String, String>> getElementsAttribute(Map<String, String> locators, String attribute,
+                                                                       Set<String> missing) {
+        return submit(action -> action.getElementsAttribute(locators, attribute, missing));
+    }
+
+    public CompletableFuture<Void> inputKeys(String locator, String keys) {
+        return submit(action -> {
+            action.inputKeys(locator, keys);
+            return null;
+        });
+    }
+
+    public CompletableFuture<List<Map<String, String>>> extractList(ExtractionTemplate template) {
+        return submit(action -> action.extractList(template));
+    }
+
+    public DriverAction getDriverAction() {
+        return driverAction;
+    }
+
+    /**
+     * Runs the same flow on every facade in parallel and gathers the results.
+     *
+     * @param facades The facades, one per driver.
+     * @param flow    The scripted flow.
+     * @return A future completed with the results in facade order, or exceptionally with
+     *         the first failure once every flow finished.
+     */
+    public static <T> CompletableFuture<List<T>> fanOut(List<AsyncDriverAction> facades,
+            Function<DriverAction, T> flow) {
+        List<CompletableFuture<T>> futures = new ArrayList<>();
+        for (AsyncDriverAction facade : facades) {
+            futures.add(facade.submit(flow));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> {
+                    List<T> results = new ArrayList<>();
+                    for (CompletableFuture<T> future : futures) {
+                        results.add(future.join());
+                    }
+                    return results;
+                });
+    }
+}
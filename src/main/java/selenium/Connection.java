@@ -1,22 +1,39 @@
 package selenium;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.openqa.selenium.HasCapabilities;
+import org.openqa.selenium.PageLoadStrategy;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
 import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.chrome.ChromeOptions;
 import org.openqa.selenium.firefox.FirefoxOptions;
 import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.firefox.FirefoxDriver;
 import org.openqa.selenium.chrome.ChromeDriverService;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.v115.network.Network;
+import org.openqa.selenium.devtools.v115.page.Page;
 import org.openqa.selenium.firefox.GeckoDriverService;
+import org.openqa.selenium.net.PortProber;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,22 +58,108 @@ public class Connection {
     	"detach", true,
     	"excludeSwitches", List.of("enable-automation", "enable-logging")
 	);
+    private static final String SCRIPT_FUNC = "Page.addScriptToEvaluateOnNewDocument";
+    private static final String CHR_MEM_JS =
+        "Object.defineProperty(navigator, 'deviceMemory', {\n" +
+        "    get: () => 8\n" +
+        "});\n" +
+        "Object.defineProperty(navigator, 'userAgent', {\n" +
+        "    get: () => 'Mozilla/5.0 (Macintosh; Intel Mac OS X 10_14_0) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/74.0.3729.169 Safari/537.36'\n" +
+        "});\n";
+    private static final String UNDEFINED_JS =
+        "Object.defineProperty(navigator, 'webdriver', {\n" +
+        "    get: () => undefined\n" +
+        "});";
+
+    /**
+     * Holder for the stealth bundle, the sources are read once per JVM on first use
+     * and concatenated so that they can be injected with a single command. Each part
+     * runs in its own try block, so one failing script does not disable the others.
+     */
+    private static class StealthBundle {
+        private static final String SOURCE = isolate(loadStealthJs()) + isolate(UNDEFINED_JS) + isolate(CHR_MEM_JS);
+
+        private static String isolate(String script) {
+            return script.isEmpty() ? "" : "try {\n" + script + "\n} catch (e) {}\n";
+        }
+
+        private static String loadStealthJs() {
+            try (InputStream in = Connection.class.getResourceAsStream("/stealth.min.js")) {
+                if (in != null) {
+                    return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                }
+                // Fall back to the source tree when the resources are not on the classpath
+                return Files.readString(Paths.get("src/main/resources/stealth.min.js"));
+            } catch (IOException e) {
+                logger.error("Failed to read stealth.min.js", e);
+                return "";
+            }
+        }
+    }
+
+    /**
+     * ChromeDriverService kept alive across sessions. ChromeDriver stops its service
+     * when the session quits, so stop() is a no-op and {@link #shutdown()} does the real work.
+     */
+    private static class SharedChromeDriverService extends ChromeDriverService {
+        SharedChromeDriverService(File executable, int port) throws IOException {
+            super(executable, port, Duration.ofSeconds(20), List.of("--port=" + port), Map.of());
+        }
+
+        @Override
+        public void stop() {
+            // Shared by many sessions, see shutdown()
+        }
+
+        void shutdown() {
+            super.stop();
+        }
+    }
+
+    private static volatile SharedChromeDriverService sharedChromeService;
+    private static boolean shutdownHookRegistered = false;
+
+    private static synchronized SharedChromeDriverService getSharedChromeService() throws IOException {
+        if (sharedChromeService == null) {
+            File executable = Paths.get(DRIVER_PATHS.get("Chrome")).toFile();
+            sharedChromeService = new SharedChromeDriverService(executable, PortProber.findFreePort());
+            sharedChromeService.start();
+            if (!shutdownHookRegistered) {
+                // The service can be restarted after shutdownSharedServices(), one hook covers every restart
+                Runtime.getRuntime().addShutdownHook(new Thread(Connection::shutdownSharedServices));
+                shutdownHookRegistered = true;
+            }
+            logger.info("Shared chromedriver service started at {}", sharedChromeService.getUrl());
+        }
+        return sharedChromeService;
+    }
+
+    /**
+     * Stops the shared driver service, sessions still using it will stop working.
+     * It is also registered once as a JVM shutdown hook when the service is first started.
+     */
+    public static synchronized void shutdownSharedServices() {
+        if (sharedChromeService != null) {
+            sharedChromeService.shutdown();
+            sharedChromeService = null;
+            logger.info("Shared chromedriver service stopped");
+        }
+    }
+
+    // Default Driver Settings
     private static class DriverCore {
         private String seleniumDriverType;
         private List<String> optParams;
-        private String scriptFunc = "Page.addScriptToEvaluateOnNewDocument";
-        private String CHR_mem_js = 
-            "Object.defineProperty(navigator, 'deviceMemory', {\n" +
-            "    get: () => 8\n" +
-            "});\n" +
-            "Object.defineProperty(navigator, 'userAgent', {\n" +
-            "    get: () => 'Mozilla/5.0 (Macintosh; Intel Mac OS X 10_14_0) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/74.0.3729.169 Safari/537.36'\n" +
-            "});\n";
-        private String undefined_js = 
-            "Object.defineProperty(navigator, 'webdriver', {\n" +
-            "    get: () => undefined\n" +
-            "});";
-        private String stealth_js;
+        /** Reuse one long-lived driver service process, only supported by chromedriver. */
+        private boolean sharedService = false;
+        private FetchProfile fetchProfile = FetchProfile.FULL;
+        /** Template user-data-dir cloned for each session, see {@link ProfileTemplate}. */
+        private String profileTemplate = null;
+        private String profileCloneRoot = null;
+        /** User-data-dir used as is, without cloning. */
+        private String userDataDir = null;
+        /** "normal" waits for every subresource, "eager" for DOMContentLoaded, "none" returns at once. */
+        private PageLoadStrategy pageLoadStrategy = PageLoadStrategy.NORMAL;
 
         public DriverCore(String seleniumDriverType, List<String> driverOptionParam, boolean headless) {
             this.seleniumDriverType = seleniumDriverType;
@@ -70,19 +173,47 @@ public class Connection {
             // Remove duplicates
             Set<String> uniqueOptions = new HashSet<>(this.optParams);
             this.optParams = new ArrayList<>(uniqueOptions);
+        }
 
-            // Load stealth_js from file
-            try {
-                this.stealth_js = Files.readString(Paths.get("src/main/resources/stealth.min.js"));
-            } catch (IOException e) {
-                logger.error("Failed to read stealth.min.js", e);
-                this.stealth_js = "";
+        /**
+         * Constructor that additionally reads driver settings from the provided map.
+         *
+         * @param settings Map containing driver settings, omit keys to keep the defaults.
+         */
+        public DriverCore(String seleniumDriverType, List<String> driverOptionParam, boolean headless,
+                Map<String, String> settings) {
+            this(seleniumDriverType, driverOptionParam, headless);
+            if (settings.containsKey("sharedService"))
+                this.sharedService = Boolean.parseBoolean(settings.get("sharedService"));
+            if (settings.containsKey("fetchProfile"))
+                this.fetchProfile = FetchProfile.fromName(settings.get("fetchProfile"));
+            if (settings.containsKey("profileTemplate"))
+                this.profileTemplate = settings.get("profileTemplate");
+            if (settings.containsKey("profileCloneRoot"))
+                this.profileCloneRoot = settings.get("profileCloneRoot");
+            if (settings.containsKey("userDataDir"))
+                this.userDataDir = settings.get("userDataDir");
+            if (settings.containsKey("pageLoadStrategy"))
+                this.pageLoadStrategy = parsePageLoadStrategy(settings.get("pageLoadStrategy"));
+            if (this.profileTemplate != null || this.userDataDir != null) {
+                // Incognito ignores the profile on disk, which defeats the point of a warm profile
+                this.optParams.remove("--incognito");
+            }
+        }
+
+        private static PageLoadStrategy parsePageLoadStrategy(String name) {
+            for (PageLoadStrategy strategy : PageLoadStrategy.values()) {
+                if (strategy.toString().equalsIgnoreCase(name)) {
+                    return strategy;
+                }
             }
+            throw new IllegalArgumentException("Unknown page load strategy: " + name);
         }
 
         @Override
         public String toString() {
-            String driverInfo = String.format("WebDriver: %s\nDriverOptions: %s", seleniumDriverType, optParams);
+            String driverInfo = String.format("WebDriver: %s\nDriverOptions: %s\nFetchProfile: %s\nPageLoadStrategy: %s",
+                    seleniumDriverType, optParams, fetchProfile.getProfileName(), pageLoadStrategy);
             logger.info("Driver info: {}", driverInfo);
             return "-".repeat(100);
         }
@@ -92,16 +223,58 @@ public class Connection {
     public static class DriverInit {
         private DriverCore driverCore;
         private WebDriver driver;
+        private Map<String, Long> startupTimings = new LinkedHashMap<>();
+        private AtomicLong blockedRequests = new AtomicLong();
+        private Path clonedProfileDir = null;
+        private RecyclePolicy recyclePolicy = null;
+        private boolean trackingNavigations = false;
+        private AtomicLong navigations = new AtomicLong();
+        private int recycleCount = 0;
 
         public DriverInit(String seleniumDriverType, List<String> driverOptionParam, boolean headless) {
             this.driverCore = new DriverCore(seleniumDriverType, driverOptionParam, headless);
             this.driver = initializeDriver();
         }
 
+        /**
+         * Constructor that allows customization of driver settings using a Map.
+         * Supported keys: sharedService ("true" to reuse one chromedriver process across sessions),
+         * fetchProfile ("dom-only", "no-media" or "full", see {@link FetchProfile}),
+         * profileTemplate (template user-data-dir cloned for this session, see {@link ProfileTemplate}),
+         * profileCloneRoot (directory the clone is created in, defaults to /dev/shm when available),
+         * userDataDir (user-data-dir used as is),
+         * pageLoadStrategy ("normal", "eager" or "none", pair the last two with
+         * {@link DriverAction#navigate(String, Readiness)}).
+         *
+         * @param settings Map containing driver settings, omit keys to keep the defaults.
+         */
+        public DriverInit(String seleniumDriverType, List<String> driverOptionParam, boolean headless,
+                Map<String, String> settings) {
+            this.driverCore = new DriverCore(seleniumDriverType, driverOptionParam, headless, settings);
+            this.driver = initializeDriver();
+        }
+
         private WebDriver initializeDriver() {
+            long startNanos = System.nanoTime();
+            long phaseNanos = startNanos;
+            WebDriver driver = null;
+            Path userDataDir = driverCore.userDataDir != null ? Paths.get(driverCore.userDataDir) : null;
+            if (driverCore.profileTemplate != null) {
+                Path cloneRoot = driverCore.profileCloneRoot != null
+                        ? Paths.get(driverCore.profileCloneRoot) : ProfileTemplate.defaultCloneRoot();
+                try {
+                    this.clonedProfileDir = ProfileTemplate.forDirectory(driverCore.profileTemplate).cloneInto(cloneRoot);
+                } catch (IOException e) {
+                    logger.error("Failed to clone profile template {}: {}", driverCore.profileTemplate, e.getMessage());
+                    throw new WebDriverException(e);
+                }
+                userDataDir = this.clonedProfileDir;
+                phaseNanos = recordPhase("profileClone", phaseNanos);
+            }
             if ("Chrome".equalsIgnoreCase(driverCore.seleniumDriverType)) {
             	
                 ChromeOptions options = new ChromeOptions();
+                options.setPageLoadStrategy(driverCore.pageLoadStrategy);
 
                 for (String option : driverCore.optParams) {
                     options.addArguments(option);
@@ -109,40 +282,72 @@ public class Connection {
                 for (Map.Entry<String, Object> entry : EXPERIMENTAL_OPTIONS.entrySet()) {
                     options.setExperimentalOption(entry.getKey(), entry.getValue());
                 }
-                ChromeDriverService service = new ChromeDriverService.Builder()
-                        .usingDriverExecutable(Paths.get(DRIVER_PATHS.get("Chrome")).toFile())
-                        .usingAnyFreePort()
-                        .build();
-                WebDriver driver = new ChromeDriver(service, options);
-                if (driver != null) {
-                    applyStealthScripts(driver);
-                    logger.info("Selenium driver successfully initialized");
-                    System.out.println(driverCore);
-                    return driver;
+                if (userDataDir != null) {
+                    options.addArguments("--user-data-dir=" + userDataDir.toAbsolutePath());
                 }
+                ChromeDriverService service;
+                if (driverCore.sharedService) {
+                    try {
+                        service = getSharedChromeService();
+                    } catch (IOException e) {
+                        logger.error("Failed to start shared chromedriver service: {}", e.getMessage());
+                        throw new WebDriverException(e);
+                    }
+                } else {
+                    service = new ChromeDriverService.Builder()
+                            .usingDriverExecutable(Paths.get(DRIVER_PATHS.get("Chrome")).toFile())
+                            .usingAnyFreePort()
+                            .build();
+                }
+                phaseNanos = recordPhase("service", phaseNanos);
+                driver = new ChromeDriver(service, options);
             } else if ("Firefox".equalsIgnoreCase(driverCore.seleniumDriverType)) {
                 FirefoxOptions options = new FirefoxOptions();
+                options.setPageLoadStrategy(driverCore.pageLoadStrategy);
                 for (String option : driverCore.optParams) {
                     options.addArguments(option);
                 }
+                for (Map.Entry<String, Object> entry : driverCore.fetchProfile.getFirefoxPreferences().entrySet()) {
+                    options.addPreference(entry.getKey(), entry.getValue());
+                }
+                if (userDataDir != null) {
+                    options.addArguments("-profile", userDataDir.toAbsolutePath().toString());
+                }
+                if (driverCore.sharedService) {
+                    // geckodriver only serves one session per process
+                    logger.warn("Shared driver service is not supported by geckodriver, starting a dedicated one");
+                }
                 GeckoDriverService service = new GeckoDriverService.Builder()
                         .usingDriverExecutable(Paths.get(DRIVER_PATHS.get("Firefox")).toFile())
                         .usingAnyFreePort()
                         .build();
-				
-                WebDriver driver = new FirefoxDriver(service, options);
-                if (driver != null) {
-                    applyStealthScripts(driver);
-                    logger.info("Selenium driver successfully initialized");
-                    System.out.println(driverCore);
-                    return driver;
+                phaseNanos = recordPhase("service", phaseNanos);
+                driver = new FirefoxDriver(service, options);
+            }
+            if (driver != null) {
+                phaseNanos = recordPhase("browser", phaseNanos);
+                applyStealthScripts(driver);
+                phaseNanos = recordPhase("stealth", phaseNanos);
+                if (driver instanceof ChromeDriver && driverCore.fetchProfile != FetchProfile.FULL) {
+                    applyFetchProfile((ChromeDriver) driver);
+                    recordPhase("fetchProfile", phaseNanos);
                 }
+                startupTimings.put("total", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+                logger.info("Selenium driver successfully initialized");
+                logger.info("Driver startup timings (ms): {}", startupTimings);
+                System.out.println(driverCore);
             }
-            return null;
+            return driver;
+        }
+
+        private long recordPhase(String phase, long phaseStartNanos) {
+            long now = System.nanoTime();
+            startupTimings.put(phase, TimeUnit.NANOSECONDS.toMillis(now - phaseStartNanos));
+            return now;
         }
 
         /**
-         * Applies the stealth JavaScript scripts to the WebDriver instance.
+         * Applies the stealth JavaScript bundle to the WebDriver instance in a single call.
          *
          * @param driver The WebDriver instance to apply scripts to.
          */
@@ -151,21 +356,115 @@ public class Connection {
                 if (driver instanceof ChromeDriver) {
                     // For ChromeDriver, use executeCdpCommand
                     ChromeDriver chromeDriver = (ChromeDriver) driver;
-                    chromeDriver.executeCdpCommand(driverCore.scriptFunc, Map.of("source", driverCore.stealth_js));
-                    chromeDriver.executeCdpCommand(driverCore.scriptFunc, Map.of("source", driverCore.undefined_js));
-                    chromeDriver.executeCdpCommand(driverCore.scriptFunc, Map.of("source", driverCore.CHR_mem_js));
+                    chromeDriver.executeCdpCommand(SCRIPT_FUNC, Map.of("source", StealthBundle.SOURCE));
                 } else {
                     // For other drivers, use JavascriptExecutor
                     JavascriptExecutor jsExecutor = (JavascriptExecutor) driver;
-                    jsExecutor.executeScript(driverCore.stealth_js);
-                    jsExecutor.executeScript(driverCore.undefined_js);
-                    jsExecutor.executeScript(driverCore.CHR_mem_js);
+                    jsExecutor.executeScript(StealthBundle.SOURCE);
                 }
             } catch (Exception e) {
                 logger.error("Failed to apply stealth scripts", e);
             }
         }
 
+        /**
+         * Blocks the URL patterns of the fetch profile through DevTools and counts
+         * every request the browser drops because of them.
+         *
+         * @param driver The ChromeDriver instance to apply the profile to.
+         */
+        private void applyFetchProfile(ChromeDriver driver) {
+            try {
+                DevTools devTools = driver.getDevTools();
+                devTools.createSessionIfThereIsNotOne();
+                devTools.send(Network.enable(Optional.empty(), Optional.empty(), Optional.empty()));
+                devTools.send(Network.setBlockedURLs(driverCore.fetchProfile.getBlockedUrlPatterns()));
+                devTools.addListener(Network.loadingFailed(), failed -> {
+                    if (failed.getBlockedReason().isPresent()) {
+                        blockedRequests.incrementAndGet();
+                    }
+                });
+            } catch (Exception e) {
+                logger.error("Failed to apply fetch profile {}", driverCore.fetchProfile.getProfileName(), e);
+            }
+        }
+
+        /**
+         * Attaches a recycling policy, the browser is then replaced by {@link #recycleIfNeeded()}
+         * once it crosses one of the policy limits.
+         *
+         * @param recyclePolicy The policy to apply, null to disable recycling.
+         */
+        public void setRecyclePolicy(RecyclePolicy recyclePolicy) {
+            this.recyclePolicy = recyclePolicy;
+            if (recyclePolicy != null) {
+                trackNavigations();
+            }
+        }
+
+        /**
+         * Counts top-level navigations of Chrome sessions through DevTools,
+         * other browsers rely on {@link #recordNavigation()}.
+         */
+        private void trackNavigations() {
+            if (trackingNavigations || !(driver instanceof ChromeDriver)) {
+                return;
+            }
+            try {
+                DevTools devTools = ((ChromeDriver) driver).getDevTools();
+                devTools.createSessionIfThereIsNotOne();
+                devTools.send(Page.enable());
+                devTools.addListener(Page.frameNavigated(), navigated -> {
+                    if (!navigated.getFrame().getParentId().isPresent()) {
+                        navigations.incrementAndGet();
+                    }
+                });
+                trackingNavigations = true;
+            } catch (Exception e) {
+                logger.error("Failed to track navigations: {}", e.getMessage());
+            }
+        }
+
+        /**
+         * Manually counts a navigation, needed for browsers without DevTools support.
+         */
+        public void recordNavigation() {
+            navigations.incrementAndGet();
+        }
+
+        public long getNavigationCount() {
+            return navigations.get();
+        }
+
+        public int getRecycleCount() {
+            return recycleCount;
+        }
+
+        /**
+         * Checks the recycling policy and, if a limit is crossed, quits the browser and
+         * starts a fresh one with the same settings. Call it between tasks only.
+         *
+         * @return true if the browser was replaced, callers must fetch it again with {@link #getDriver()}.
+         */
+        public boolean recycleIfNeeded() {
+            if (recyclePolicy == null || driver == null) {
+                return false;
+            }
+            String reason = recyclePolicy.check(driver, navigations.get());
+            if (reason == null) {
+                return false;
+            }
+            logger.info("Recycling browser, limit crossed: {}", reason);
+            quit();
+            navigations.set(0);
+            trackingNavigations = false;
+            startupTimings.clear();
+            this.driver = initializeDriver();
+            recycleCount++;
+            trackNavigations();
+            return true;
+        }
+
         /**
          * This function is explicitly used for non-Chrome browsers to eliminate driver signature
          * and is required to be executed every time close to the validation
@@ -173,13 +472,9 @@ public class Connection {
          * @param driver The WebDriver instance to inject the script into.
          */
         public static void insertUndefinedJs(WebDriver driver) {
-            String undefinedJs = 
-                "Object.defineProperty(navigator, 'webdriver', {\n" +
-                "    get: () => undefined\n" +
-                "});";
             try {
                 JavascriptExecutor jsExecutor = (JavascriptExecutor) driver;
-                jsExecutor.executeScript(undefinedJs);
+                jsExecutor.executeScript(UNDEFINED_JS);
             } catch (Exception e) {
                 logger.error("Failed to insert undefined_js", e);
             }
@@ -190,8 +485,64 @@ public class Connection {
             return driverCore.toString();
         }
 
+        /**
+         * @return Key identifying the browser build and option set of this session, sessions
+         *         with equal keys present the same fingerprint, see {@link FingerprintValidator}.
+         */
+        public String getConfigurationKey() {
+            String browserVersion = "";
+            if (driver instanceof HasCapabilities) {
+                browserVersion = ((HasCapabilities) driver).getCapabilities().getBrowserVersion();
+            }
+            List<String> options = new ArrayList<>(driverCore.optParams);
+            Collections.sort(options);
+            return driverCore.seleniumDriverType + "/" + browserVersion + " " + options
+                    + " " + driverCore.fetchProfile.getProfileName();
+        }
+
         public WebDriver getDriver() {
             return this.driver;
         }
+
+        /**
+         * @return Milliseconds spent in each startup phase (service, browser, stealth, total).
+         */
+        public Map<String, Long> getStartupTimings() {
+            return Collections.unmodifiableMap(startupTimings);
+        }
+
+        public FetchProfile getFetchProfile() {
+            return driverCore.fetchProfile;
+        }
+
+        public PageLoadStrategy getPageLoadStrategy() {
+            return driverCore.pageLoadStrategy;
+        }
+
+        /**
+         * @return Requests blocked by the fetch profile in this session, always 0 for Firefox.
+         */
+        public long getBlockedRequestCount() {
+            return blockedRequests.get();
+        }
+
+        /**
+         * Quits the underlying WebDriver, errors are logged instead of thrown
+         * so that the method is safe to call during cleanup.
+         */
+        public void quit() {
+            if (this.driver != null) {
+                NetworkIdleTracker.release(this.driver);
+                try {
+                    this.driver.quit();
+                } catch (Exception e) {
+                    logger.error("Failed to quit driver: {}", e.getMessage());
+                }
+            }
+            if (this.clonedProfileDir != null) {
+                ProfileTemplate.deleteRecursively(this.clonedProfileDir);
+                this.clonedProfileDir = null;
+            }
+        }
     }
 }
\ No newline at end of file
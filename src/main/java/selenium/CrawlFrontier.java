@@ -0,0 +1,499 @@
+package selenium;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Priority URL queue with per-host politeness. Every host has its own queue, a token bucket
+ * limiting its request rate and a cap on concurrent requests; {@link #take(long)} hands out
+ * the highest priority task among the hosts allowed to receive one right now, so one slow or
+ * strict host never blocks the others. Failed tasks are retried with jittered exponential
+ * backoff. See {@link CrawlScheduler} for running a frontier over a {@link DriverPool}.
+ */
+public class CrawlFrontier {
+    private static final Logger logger = LoggerFactory.getLogger(CrawlFrontier.class);
+
+    // Default Frontier Parameters
+    private static class FrontierDefaultParam {
+        double HOST_RATE_PER_SECOND = 1.0;
+        int HOST_BURST = 2;
+        int HOST_CONCURRENCY = 2;
+        int MAX_RETRIES = 3;
+        long BACKOFF_BASE_MILLIS = 1000;
+        long BACKOFF_MAX_MILLIS = 60000;
+        boolean DEDUPLICATE = true;
+        int MAX_DEPTH = Integer.MAX_VALUE;
+
+        FrontierDefaultParam() {
+        }
+
+        /**
+         * Constructor that initializes parameters based on the provided map.
+         *
+         * @param params Map containing frontier parameters.
+         */
+        FrontierDefaultParam(Map<String, String> params) {
+            if (params.containsKey("hostRatePerSecond"))
+                this.HOST_RATE_PER_SECOND = Double.parseDouble(params.get("hostRatePerSecond"));
+            if (params.containsKey("hostBurst"))
+                this.HOST_BURST = Integer.parseInt(params.get("hostBurst"));
+            if (params.containsKey("hostConcurrency"))
+                this.HOST_CONCURRENCY = Integer.parseInt(params.get("hostConcurrency"));
+            if (params.containsKey("maxRetries"))
+                this.MAX_RETRIES = Integer.parseInt(params.get("maxRetries"));
+            if (params.containsKey("backoffBaseMillis"))
+                this.BACKOFF_BASE_MILLIS = Long.parseLong(params.get("backoffBaseMillis"));
+            if (params.containsKey("backoffMaxMillis"))
+                this.BACKOFF_MAX_MILLIS = Long.parseLong(params.get("backoffMaxMillis"));
+            if (params.containsKey("deduplicate"))
+                this.DEDUPLICATE = Boolean.parseBoolean(params.get("deduplicate"));
+            if (params.containsKey("maxDepth"))
+                this.MAX_DEPTH = Integer.parseInt(params.get("maxDepth"));
+            if (this.HOST_RATE_PER_SECOND <= 0 || this.HOST_BURST < 1 || this.HOST_CONCURRENCY < 1) {
+                throw new IllegalArgumentException(
+                    "Host limits must satisfy hostRatePerSecond > 0, hostBurst >= 1 and hostConcurrency >= 1");
+            }
+        }
+    }
+
+    /**
+     * A URL waiting in or handed out by the frontier.
+     */
+    public static class CrawlTask {
+        private final String url;
+        private final String host;
+        private final int priority;
+        private final int depth;
+        private final long sequence;
+        private int attempts = 0;
+        /** Earliest dispatch time, set by the retry backoff. */
+        private long notBeforeNanos;
+        /** Time the task became dispatchable, used for the host lag. */
+        private long readyNanos;
+        private String lastError = null;
+
+        CrawlTask(String url, String host, int priority, int depth, long sequence, long nowNanos) {
+            this.url = url;
+            this.host = host;
+            this.priority = priority;
+            this.depth = depth;
+            this.sequence = sequence;
+            this.notBeforeNanos = nowNanos;
+            this.readyNanos = nowNanos;
+        }
+
+        public String getUrl() { return url; }
+        public String getHost() { return host; }
+        public int getPriority() { return priority; }
+        public int getDepth() { return depth; }
+        public int getAttempts() { return attempts; }
+        public String getLastError() { return lastError; }
+
+        @Override
+        public String toString() {
+            return String.format("CrawlTask{%s, priority=%d, depth=%d, attempts=%d}", url, priority, depth, attempts);
+        }
+    }
+
+    private static class HostState {
+        /** Higher priority first, then first in first out. */
+        private final PriorityQueue<CrawlTask> queue = new PriorityQueue<>((a, b) ->
+                a.priority != b.priority ? Integer.compare(b.priority, a.priority) : Long.compare(a.sequence, b.sequence));
+        private double tokens;
+        private long refilledNanos;
+        private int active = 0;
+        private long dispatched = 0;
+        private long completed = 0;
+        private long failed = 0;
+        private long totalLagNanos = 0;
+        private long maxLagNanos = 0;
+
+        HostState(int burst, long nowNanos) {
+            this.tokens = burst;
+            this.refilledNanos = nowNanos;
+        }
+    }
+
+    private final FrontierDefaultParam params;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Map<String, HostState> hosts = new HashMap<>();
+    private final Set<String> seen = new HashSet<>();
+    private long sequence = 0;
+    private int queued = 0;
+    private int inFlight = 0;
+    private boolean closed = false;
+    private final long startNanos = System.nanoTime();
+
+    private final AtomicLong completedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong retriedCount = new AtomicLong();
+    private final AtomicLong duplicateCount = new AtomicLong();
+    private final AtomicLong tooDeepCount = new AtomicLong();
+
+    public CrawlFrontier() {
+        this(Map.of());
+    }
+
+    /**
+     * Creates a frontier, pass a map of parameters to override the defaults:
+     * hostRatePerSecond, hostBurst, hostConcurrency, maxRetries, backoffBaseMillis,
+     * backoffMaxMillis, deduplicate, maxDepth.
+     *
+     * @param parameters Map containing frontier parameters.
+     */
+    public CrawlFrontier(Map<String, String> parameters) {
+        this.params = new FrontierDefaultParam(parameters);
+    }
+
+    /**
+     * Adds a url with priority 0 at depth 0.
+     *
+     * @return false if the url was already added and deduplication is on.
+     */
+    public boolean add(String url) {
+        return add(url, 0, 0);
+    }
+
+    /**
+     * Adds a url to the frontier.
+     *
+     * @param url      Absolute http(s) url.
+     * @param priority Higher values are dispatched first within a host.
+     * @param depth    Link depth, urls deeper than maxDepth are dropped.
+     * @return false if the url is deeper than maxDepth, or was already added and
+     *         deduplication is on.
+     */
+    public boolean add(String url, int priority, int depth) {
+        String host = hostOf(url);
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Crawl frontier is closed");
+            }
+            if (depth > params.MAX_DEPTH) {
+                // Checked before deduplication, the url may still be reached by a shorter path
+                tooDeepCount.incrementAndGet();
+                return false;
+            }
+            if (params.DEDUPLICATE && !seen.add(url)) {
+                duplicateCount.incrementAndGet();
+                return false;
+            }
+            long now = System.nanoTime();
+            HostState state = hosts.computeIfAbsent(host, h -> new HostState(params.HOST_BURST, now));
+            state.queue.add(new CrawlTask(url, host, priority, depth, sequence++, now));
+            queued++;
+            changed.signalAll();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static String hostOf(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            if (host == null) {
+                throw new IllegalArgumentException("Url has no host: " + url);
+            }
+            return host.toLowerCase();
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid url {}: {}", url, e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Takes the next task a host is allowed to receive, blocking until one is available.
+     * The task must be reported with {@link #complete(CrawlTask)} or {@link #fail(CrawlTask, Throwable)}.
+     *
+     * @param timeoutMillis Maximum time to wait.
+     * @return The task, or null on timeout, once the frontier is closed or once the crawl
+     *         is finished (nothing queued and nothing in flight), see {@link #isClosed()}
+     *         and {@link #isFinished()} to tell them apart.
+     */
+    public CrawlTask take(long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        lock.lock();
+        try {
+            while (true) {
+                if (closed || (queued == 0 && inFlight == 0)) {
+                    return null;
+                }
+                long now = System.nanoTime();
+                long remainingNanos = deadline - now;
+                long nextEligibleNanos = Long.MAX_VALUE;
+                HostState bestHost = null;
+                CrawlTask best = null;
+                for (HostState state : hosts.values()) {
+                    CrawlTask head = state.queue.peek();
+                    if (head == null || state.active >= params.HOST_CONCURRENCY) {
+                        continue;
+                    }
+                    refill(state, now);
+                    long waitNanos = Math.max(head.notBeforeNanos - now, tokenWaitNanos(state));
+                    if (waitNanos > 0) {
+                        nextEligibleNanos = Math.min(nextEligibleNanos, waitNanos);
+                        continue;
+                    }
+                    if (best == null || head.priority > best.priority
+                            || (head.priority == best.priority && head.sequence < best.sequence)) {
+                        best = head;
+                        bestHost = state;
+                    }
+                }
+                if (best != null) {
+                    bestHost.queue.poll();
+                    bestHost.tokens -= 1;
+                    bestHost.active++;
+                    bestHost.dispatched++;
+                    long lag = now - Math.max(best.readyNanos, best.notBeforeNanos);
+                    bestHost.totalLagNanos += lag;
+                    bestHost.maxLagNanos = Math.max(bestHost.maxLagNanos, lag);
+                    best.attempts++;
+                    queued--;
+                    inFlight++;
+                    return best;
+                }
+                if (remainingNanos <= 0) {
+                    return null;
+                }
+                // Sleep until a host becomes eligible, a task is added or a task finishes
+                changed.awaitNanos(Math.min(remainingNanos, nextEligibleNanos));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refill(HostState state, long now) {
+        double earned = (now - state.refilledNanos) / 1e9 * params.HOST_RATE_PER_SECOND;
+        state.tokens = Math.min(params.HOST_BURST, state.tokens + earned);
+        state.refilledNanos = now;
+    }
+
+    private long tokenWaitNanos(HostState state) {
+        if (state.tokens >= 1) {
+            return 0;
+        }
+        return (long) Math.ceil((1 - state.tokens) / params.HOST_RATE_PER_SECOND * 1e9);
+    }
+
+    /**
+     * Reports a task as done.
+     */
+    public void complete(CrawlTask task) {
+        lock.lock();
+        try {
+            HostState state = hosts.get(task.host);
+            state.active--;
+            state.completed++;
+            inFlight--;
+            completedCount.incrementAndGet();
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reports a task as failed, it is queued again after a backoff until maxRetries is reached.
+     *
+     * @return true if the task will be retried.
+     */
+    public boolean fail(CrawlTask task, Throwable error) {
+        lock.lock();
+        try {
+            HostState state = hosts.get(task.host);
+            state.active--;
+            inFlight--;
+            task.lastError = error == null ? null : error.getClass().getSimpleName() + ": " + error.getMessage();
+            boolean retry = !closed && task.attempts <= params.MAX_RETRIES;
+            if (retry) {
+                long backoff = Math.min(params.BACKOFF_MAX_MILLIS,
+                        params.BACKOFF_BASE_MILLIS << Math.min(20, task.attempts - 1));
+                // Full jitter keeps retries of many tasks failing together from lining up
+                long delay = ThreadLocalRandom.current().nextLong(backoff / 2, backoff + 1);
+                long now = System.nanoTime();
+                task.notBeforeNanos = now + TimeUnit.MILLISECONDS.toNanos(delay);
+                task.readyNanos = task.notBeforeNanos;
+                state.queue.add(task);
+                queued++;
+                retriedCount.incrementAndGet();
+                logger.warn("Retrying {} in {} ms after attempt {}: {}", task.url, delay, task.attempts, task.lastError);
+            } else {
+                state.failed++;
+                failedCount.incrementAndGet();
+                logger.error("Giving up on {} after {} attempts: {}", task.url, task.attempts, task.lastError);
+            }
+            changed.signalAll();
+            return retry;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return true once nothing is queued and nothing is in flight.
+     */
+    public boolean isFinished() {
+        lock.lock();
+        try {
+            return queued == 0 && inFlight == 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return true once {@link #close()} was called, {@link #take(long)} never blocks from then on.
+     */
+    public boolean isClosed() {
+        lock.lock();
+        try {
+            return closed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wakes up every taker, they receive null from then on.
+     */
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return A snapshot of the frontier statistics.
+     */
+    public FrontierStats getStats() {
+        lock.lock();
+        try {
+            Map<String, HostStats> hostStats = new LinkedHashMap<>();
+            for (Map.Entry<String, HostState> entry : hosts.entrySet()) {
+                HostState state = entry.getValue();
+                hostStats.put(entry.getKey(), new HostStats(state.queue.size(), state.active, state.dispatched,
+                        state.completed, state.failed, state.totalLagNanos, state.maxLagNanos));
+            }
+            return new FrontierStats(queued, inFlight, completedCount.get(), failedCount.get(),
+                    retriedCount.get(), duplicateCount.get(), tooDeepCount.get(), System.nanoTime() - startNanos,
+                    hostStats);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Per-host statistics. The lag is the time a task waited for its host's rate limit or
+     * concurrency cap after it became dispatchable.
+     */
+    public static class HostStats {
+        private final int queued;
+        private final int active;
+        private final long dispatched;
+        private final long completed;
+        private final long failed;
+        private final long totalLagNanos;
+        private final long maxLagNanos;
+
+        HostStats(int queued, int active, long dispatched, long completed, long failed,
+                long totalLagNanos, long maxLagNanos) {
+            this.queued = queued;
+            this.active = active;
+            this.dispatched = dispatched;
+            this.completed = completed;
+            this.failed = failed;
+            this.totalLagNanos = totalLagNanos;
+            this.maxLagNanos = maxLagNanos;
+        }
+
+        public int getQueued() { return queued; }
+        public int getActive() { return active; }
+        public long getDispatched() { return dispatched; }
+        public long getCompleted() { return completed; }
+        public long getFailed() { return failed; }
+        public double getAverageLagMillis() {
+            return dispatched == 0 ? 0 : totalLagNanos / 1_000_000.0 / dispatched;
+        }
+        public double getMaxLagMillis() { return maxLagNanos / 1_000_000.0; }
+
+        @Override
+        public String toString() {
+            return String.format("HostStats{queued=%d, active=%d, dispatched=%d, completed=%d, failed=%d, "
+                    + "avgLagMs=%.2f, maxLagMs=%.2f}", queued, active, dispatched, completed, failed,
+                    getAverageLagMillis(), getMaxLagMillis());
+        }
+    }
+
+    /**
+     * Immutable snapshot of frontier statistics, used to tune the host limits and the number of workers.
+     */
+    public static class FrontierStats {
+        private final int queued;
+        private final int inFlight;
+        private final long completed;
+        private final long failed;
+        private final long retried;
+        private final long duplicates;
+        private final long tooDeep;
+        private final long elapsedNanos;
+        private final Map<String, HostStats> hosts;
+
+        FrontierStats(int queued, int inFlight, long completed, long failed, long retried, long duplicates,
+                long tooDeep, long elapsedNanos, Map<String, HostStats> hosts) {
+            this.queued = queued;
+            this.inFlight = inFlight;
+            this.completed = completed;
+            this.failed = failed;
+            this.retried = retried;
+            this.duplicates = duplicates;
+            this.tooDeep = tooDeep;
+            this.elapsedNanos = elapsedNanos;
+            this.hosts = Collections.unmodifiableMap(hosts);
+        }
+
+        /** Queue depth over every host. */
+        public int getQueued() { return queued; }
+        public int getInFlight() { return inFlight; }
+        public long getCompleted() { return completed; }
+        public long getFailed() { return failed; }
+        public long getRetried() { return retried; }
+        public long getDuplicates() { return duplicates; }
+        /** Urls dropped because they were deeper than maxDepth. */
+        public long getTooDeep() { return tooDeep; }
+        /** Completed tasks per second since the frontier was created. */
+        public double getThroughputPerSecond() {
+            return elapsedNanos == 0 ? 0 : completed * 1e9 / elapsedNanos;
+        }
+        public Map<String, HostStats> getHosts() { return hosts; }
+
+        @Override
+        public String toString() {
+            return String.format("FrontierStats{queued=%d, inFlight=%d, completed=%d, failed=%d, retried=%d, "
+                    + "duplicates=%d, tooDeep=%d, throughput=%.2f/s, hosts=%s}", queued, inFlight, completed, failed,
+                    retried, duplicates, tooDeep, getThroughputPerSecond(), hosts);
+        }
+    }
+}
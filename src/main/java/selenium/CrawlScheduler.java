@@ -0,0 +1,171 @@
+package selenium;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.remote.UnreachableBrowserException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import selenium.Connection.DriverInit;
+
+/**
+ * Runs a {@link CrawlFrontier} over a {@link DriverPool}: every worker takes the next task
+ * the frontier allows, borrows whichever session is free, navigates to the url and hands the
+ * page to the handler. Handlers add the links they discover back to the frontier.
+ */
+public class CrawlScheduler implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(CrawlScheduler.class);
+    private static final long TAKE_TIMEOUT_MILLIS = 1000;
+
+    /**
+     * Processes one page, the driver has already navigated to the task's url.
+     */
+    public interface PageHandler {
+        void handle(DriverAction action, CrawlFrontier.CrawlTask task, CrawlFrontier frontier) throws Exception;
+    }
+
+    private final CrawlFrontier frontier;
+    private final DriverPool pool;
+    private final int workerCount;
+    private final String innerBy;
+    private final Readiness readiness;
+    private final PageHandler handler;
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean stopped = false;
+
+    /**
+     * @param frontier    The frontier to drain.
+     * @param pool        The sessions to crawl with, size it to at least workerCount.
+     * @param workerCount Number of pages processed concurrently.
+     * @param innerBy     Locator strategy of the DriverAction handed to the handler.
+     * @param readiness   Condition each page has to meet before the handler runs.
+     * @param handler     The page handler, called from the worker threads.
+     */
+    public CrawlScheduler(CrawlFrontier frontier, DriverPool pool, int workerCount, String innerBy,
+            Readiness readiness, PageHandler handler) {
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("workerCount must be >= 1");
+        }
+        this.frontier = frontier;
+        this.pool = pool;
+        this.workerCount = workerCount;
+        this.innerBy = innerBy;
+        this.readiness = readiness;
+        this.handler = handler;
+    }
+
+    /**
+     * Starts the workers, they stop once the frontier is finished or closed.
+     */
+    public synchronized CrawlScheduler start() {
+        if (!workers.isEmpty()) {
+            throw new IllegalStateException("Crawl scheduler already started");
+        }
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(this::runWorker, "crawl-worker-" + (i + 1));
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+        logger.info("Crawl scheduler started with {} workers", workerCount);
+        return this;
+    }
+
+    private void runWorker() {
+        while (!stopped) {
+            CrawlFrontier.CrawlTask task;
+            try {
+                task = frontier.take(TAKE_TIMEOUT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (task == null) {
+                // take() returns at once when closed, looping on would spin
+                if (frontier.isClosed() || frontier.isFinished()) {
+                    return;
+                }
+                continue;
+            }
+            process(task);
+        }
+    }
+
+    private void process(CrawlFrontier.CrawlTask task) {
+        DriverInit session = null;
+        long startNanos = System.nanoTime();
+        try {
+            session = pool.borrow();
+            DriverAction action = new DriverAction(session.getDriver(), innerBy);
+            action.navigate(task.getUrl(), readiness);
+            handler.handle(action, task, frontier);
+            pool.returnDriver(session);
+            session = null;
+            frontier.complete(task);
+            logger.info("Crawled {} in {} ms", task.getUrl(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        } catch (Exception e) {
+            if (session != null) {
+                releaseAfterFailure(session, e);
+            }
+            frontier.fail(task, e);
+        }
+    }
+
+    private void releaseAfterFailure(DriverInit session, Exception e) {
+        try {
+            if (e instanceof NoSuchSessionException || e instanceof UnreachableBrowserException) {
+                // The browser is gone, a retry needs a fresh one
+                pool.invalidate(session);
+            } else {
+                pool.returnDriver(session);
+            }
+        } catch (Exception releaseError) {
+            logger.error("Failed to release crawl session: {}", releaseError.getMessage());
+        }
+    }
+
+    /**
+     * Waits for the workers to finish.
+     *
+     * @param timeoutMillis Maximum time to wait.
+     * @return true if every worker finished in time.
+     */
+    public boolean awaitCompletion(long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        List<Thread> started;
+        synchronized (this) {
+            started = new ArrayList<>(workers);
+        }
+        for (Thread worker : started) {
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remainingMillis <= 0) {
+                return false;
+            }
+            worker.join(remainingMillis);
+            if (worker.isAlive()) {
+                return false;
+            }
+        }
+        logger.info("Crawl finished, {}", frontier.getStats());
+        return true;
+    }
+
+    /**
+     * @return The statistics of the underlying frontier.
+     */
+    public CrawlFrontier.FrontierStats getStats() {
+        return frontier.getStats();
+    }
+
+    /**
+     * Stops the workers after their current page, the frontier and the pool stay open.
+     */
+    @Override
+    public void close() {
+        stopped = true;
+        logger.info("Crawl scheduler stopped, {}", frontier.getStats());
+    }
+}
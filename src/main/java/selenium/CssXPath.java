@@ -0,0 +1,236 @@
+package selenium;
+
+/**
+ * Translates the common subset of CSS selectors into XPath 1.0 so that css locators can be
+ * evaluated by jaxen over a {@link PageSnapshot}. Supported: type and universal selectors,
+ * #id, .class, attribute selectors ([a], =, ~=, |=, ^=, $=, *=), :first-child, :last-child,
+ * :only-child, :nth-child(n), the descendant, child (&gt;), adjacent (+) and general sibling (~)
+ * combinators, and selector groups separated by commas.
+ */
+class CssXPath {
+    private final String css;
+    private int pos = 0;
+
+    private CssXPath(String css) {
+        this.css = css;
+    }
+
+    /**
+     * @param css      The selector.
+     * @param relative Whether the expression is evaluated from a context element (".//" prefix).
+     * @return The equivalent XPath expression.
+     * @throws IllegalArgumentException for selectors outside the supported subset.
+     */
+    static String toXPath(String css, boolean relative) {
+        return new CssXPath(css.trim()).group(relative ? ".//" : "//");
+    }
+
+    private String group(String prefix) {
+        StringBuilder xpath = new StringBuilder();
+        while (true) {
+            if (xpath.length() > 0) {
+                xpath.append(" | ");
+            }
+            xpath.append(selector(prefix));
+            skipSpaces();
+            if (pos >= css.length()) {
+                return xpath.toString();
+            }
+            expect(',');
+            skipSpaces();
+        }
+    }
+
+    private String selector(String prefix) {
+        StringBuilder xpath = new StringBuilder(prefix);
+        String axis = "";
+        while (true) {
+            xpath.append(compound(axis));
+            boolean spaced = skipSpaces();
+            if (pos >= css.length() || css.charAt(pos) == ',') {
+                return xpath.toString();
+            }
+            char c = css.charAt(pos);
+            if (c == '>' || c == '+' || c == '~') {
+                pos++;
+                skipSpaces();
+                xpath.append('/');
+                axis = c == '>' ? "" : c == '+' ? "+" : "following-sibling::";
+            } else if (spaced) {
+                xpath.append("//");
+                axis = "";
+            } else {
+                throw unsupported();
+            }
+        }
+    }
+
+    private String compound(String axis) {
+        String tag = "*";
+        if (pos < css.length() && (css.charAt(pos) == '*' || isNameChar(css.charAt(pos)))) {
+            tag = css.charAt(pos) == '*' ? consume(1) : name().toLowerCase();
+        }
+        StringBuilder conditions = new StringBuilder();
+        while (pos < css.length()) {
+            char c = css.charAt(pos);
+            if (c == '#') {
+                pos++;
+                conditions.append("[@id=").append(literal(name())).append(']');
+            } else if (c == '.') {
+                pos++;
+                conditions.append(containsWord("@class", name()));
+            } else if (c == '[') {
+                pos++;
+                conditions.append(attribute());
+            } else if (c == ':') {
+                pos++;
+                conditions.append(pseudo());
+            } else {
+                break;
+            }
+        }
+        if ("+".equals(axis)) {
+            // Adjacent sibling: the very next element, which must also match the compound
+            return "following-sibling::*[1]" + ("*".equals(tag) ? "" : "[self::" + tag + "]") + conditions;
+        }
+        return axis + tag + conditions;
+    }
+
+    private String attribute() {
+        skipSpaces();
+        String attr = "@" + name();
+        skipSpaces();
+        if (pos < css.length() && css.charAt(pos) == ']') {
+            pos++;
+            return "[" + attr + "]";
+        }
+        String op;
+        char c = css.charAt(pos);
+        if (c == '=') {
+            op = consume(1);
+        } else if ("~|^$*".indexOf(c) >= 0 && pos + 1 < css.length() && css.charAt(pos + 1) == '=') {
+            op = consume(2);
+        } else {
+            throw unsupported();
+        }
+        skipSpaces();
+        String value = value();
+        skipSpaces();
+        expect(']');
+        String v = literal(value);
+        switch (op) {
+            case "=":
+                return "[" + attr + "=" + v + "]";
+            case "~=":
+                return containsWord(attr, value);
+            case "|=":
+                return "[" + attr + "=" + v + " or starts-with(" + attr + ", " + literal(value + "-") + ")]";
+            case "^=":
+                return "[starts-with(" + attr + ", " + v + ")]";
+            case "$=":
+                return "[substring(" + attr + ", string-length(" + attr + ") - " + value.length() + " + 1) = " + v + "]";
+            case "*=":
+                return "[contains(" + attr + ", " + v + ")]";
+            default:
+                throw unsupported();
+        }
+    }
+
+    private String pseudo() {
+        String pseudo = name();
+        switch (pseudo) {
+            case "first-child":
+                return "[not(preceding-sibling::*)]";
+            case "last-child":
+                return "[not(following-sibling::*)]";
+            case "only-child":
+                return "[not(preceding-sibling::*) and not(following-sibling::*)]";
+            case "nth-child":
+                expect('(');
+                int start = pos;
+                while (pos < css.length() && Character.isDigit(css.charAt(pos))) {
+                    pos++;
+                }
+                if (start == pos) {
+                    throw unsupported();
+                }
+                int n = Integer.parseInt(css.substring(start, pos));
+                expect(')');
+                return "[count(preceding-sibling::*) = " + (n - 1) + "]";
+            default:
+                throw unsupported();
+        }
+    }
+
+    private static String containsWord(String attr, String word) {
+        return "[contains(concat(' ', normalize-space(" + attr + "), ' '), " + literal(" " + word + " ") + ")]";
+    }
+
+    /**
+     * Quotes a string as an XPath literal, XPath 1.0 has no escapes so mixed quotes need concat().
+     */
+    static String literal(String value) {
+        if (value.indexOf('\'') < 0) {
+            return "'" + value + "'";
+        }
+        if (value.indexOf('"') < 0) {
+            return "\"" + value + "\"";
+        }
+        return "concat('" + value.replace("'", "', \"'\", '") + "')";
+    }
+
+    private String value() {
+        char c = css.charAt(pos);
+        if (c == '"' || c == '\'') {
+            int end = css.indexOf(c, pos + 1);
+            if (end < 0) {
+                throw unsupported();
+            }
+            String value = css.substring(pos + 1, end);
+            pos = end + 1;
+            return value;
+        }
+        return name();
+    }
+
+    private String name() {
+        int start = pos;
+        while (pos < css.length() && isNameChar(css.charAt(pos))) {
+            pos++;
+        }
+        if (start == pos) {
+            throw unsupported();
+        }
+        return css.substring(start, pos);
+    }
+
+    private static boolean isNameChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '-' || c == '_';
+    }
+
+    private boolean skipSpaces() {
+        int start = pos;
+        while (pos < css.length() && Character.isWhitespace(css.charAt(pos))) {
+            pos++;
+        }
+        return pos > start;
+    }
+
+    private String consume(int length) {
+        String token = css.substring(pos, pos + length);
+        pos += length;
+        return token;
+    }
+
+    private void expect(char c) {
+        if (pos >= css.length() || css.charAt(pos) != c) {
+            throw unsupported();
+        }
+        pos++;
+    }
+
+    private IllegalArgumentException unsupported() {
+        return new IllegalArgumentException("Unsupported css selector for snapshot mode at position "
+                + pos + ": " + css);
+    }
+}
@@ -0,0 +1,69 @@
+package selenium;
+
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Removable DevTools listeners. DevTools can only clear every listener of a session at once,
+ * which would also remove the ones of the fetch profile and navigation tracking, so components
+ * with a shorter life than the session subscribe here instead: one DevTools listener per event
+ * fans out to the current subscribers, and {@link Subscription#close()} detaches a subscriber.
+ */
+class DevToolsEvents {
+    private static final Logger logger = LoggerFactory.getLogger(DevToolsEvents.class);
+    /** The hub must not reference its DevTools, or the weak key would never be released. */
+    private static final Map<DevTools, DevToolsEvents> HUBS = new WeakHashMap<>();
+
+    private final Map<String, List<Consumer<Object>>> subscribers = new ConcurrentHashMap<>();
+
+    private DevToolsEvents() {
+    }
+
+    static DevToolsEvents of(DevTools devTools) {
+        synchronized (HUBS) {
+            return HUBS.computeIfAbsent(devTools, key -> new DevToolsEvents());
+        }
+    }
+
+    /**
+     * Subscribes to an event, the DevTools listener of the event is registered on first use.
+     *
+     * @return The subscription, close it to stop receiving the event.
+     */
+    @SuppressWarnings("unchecked")
+    <X> Subscription subscribe(DevTools devTools, Event<X> event, Consumer<X> listener) {
+        Consumer<Object> subscriber = (Consumer<Object>) listener;
+        List<Consumer<Object>> list = subscribers.computeIfAbsent(event.getMethod(), method -> {
+            List<Consumer<Object>> created = new CopyOnWriteArrayList<>();
+            devTools.addListener(event, payload -> {
+                for (Consumer<Object> consumer : created) {
+                    try {
+                        consumer.accept(payload);
+                    } catch (RuntimeException e) {
+                        logger.error("DevTools listener of {} failed: {}", method, e.getMessage());
+                    }
+                }
+            });
+            return created;
+        });
+        list.add(subscriber);
+        return () -> list.remove(subscriber);
+    }
+
+    /**
+     * Handle of one subscriber.
+     */
+    interface Subscription extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
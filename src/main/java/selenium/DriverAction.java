@@ -2,29 +2,285 @@ package selenium;
 
 
 import org.openqa.selenium.*;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chromium.HasCdp;
 import org.openqa.selenium.interactions.Actions;
+import org.openqa.selenium.interactions.Interactive;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.LongSummaryStatistics;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 public class DriverAction {
     private WebDriver driver;
     private String inner_byString = "xpath";
 
-	private static int GLOBAL_WAIT_TIME = 20;
-    private static Boolean GLOBAL_DEBUG_LOG_SWTICH = true;
+	private static volatile int GLOBAL_WAIT_TIME = 20;
+    private static volatile Boolean GLOBAL_DEBUG_LOG_SWTICH = true;
     /**@GLOBAL_DEBUG_LOG_LEVEL_STRING is set because the default debug mode ouput 
      * excessive information, feel free to alter it to true for debug level,
      * remember to alter the one in logback.xml as well.*/
     /**We leave @error out of discussion because it is much more critical and will be 
      * raised more aggressively. */
-    private static Boolean GLOBAL_LOG_LEVEL_DEBUG = false;
+    private static volatile Boolean GLOBAL_LOG_LEVEL_DEBUG = false;
+    /**Per-instance overrides of the GLOBAL parameters, null falls back to the GLOBAL value,
+     * so that instances with different settings can run side by side in one JVM. */
+    private Integer waitTimeOverride = null;
+    private Boolean debugLogSwitchOverride = null;
+    private Boolean logLevelDebugOverride = null;
     private static final Logger logger = LoggerFactory.getLogger(DriverAction.class);
+    /** Compiled By locators shared by every instance, By objects are immutable. */
+    private static final Map<String, By> BY_CACHE = new ConcurrentHashMap<>();
+    private static final int BY_CACHE_LIMIT = 4096;
+    /** Resolved elements of the current document, dropped on context switches or when they go stale. */
+    private final Map<String, WebElement> elementCache = new HashMap<>();
+    private final Map<Integer, WebDriverWait> waitCache = new HashMap<>();
+    /** Off by default, see {@link #setElementCacheEnabled(boolean)}. */
+    private boolean elementCacheEnabled = false;
+    /** Token written into the window of the cached elements when the cache was first filled. */
+    private String documentStamp = null;
+    /** Set after an action that may have replaced the document, checked on the next cache hit. */
+    private boolean documentUnverified = false;
+    /** Window the driver is known to be in, null until it is first needed. */
+    private String currentWindow = null;
+    /** Frame locators from the top document down to the current frame, empty at the top. */
+    private final List<String> framePath = new ArrayList<>();
+    /** Frame elements keyed by their path from the top, valid until the top document changes. */
+    private final Map<String, WebElement> frameElementCache = new HashMap<>();
+    /** Window handles of the last refresh, null once an action may have opened or closed a window. */
+    private List<String> windowHandles = null;
+    /** Set once the driver may have switched outside of DriverAction, the frame path is then unreliable. */
+    private boolean contextUnknown = false;
+    private long skippedSwitches = 0;
+    /**
+     * In-page counterpart of {@link #ByLocator(String, String)}, defines __sup_find(by, value, root)
+     * returning the first match or null, and __sup_findAll(by, value, root) returning an array.
+     */
+    static final String JS_LOCATOR_FUNCS =
+        "function __sup_findAll(by, value, root) {\n" +
+        "  root = root || document;\n" +
+        "  var doc = root.ownerDocument || root;\n" +
+        "  switch (by) {\n" +
+        "    case 'id': { var e = doc.getElementById(value); return e && (root === doc || root.contains(e)) ? [e] : []; }\n" +
+        "    case 'name': return Array.prototype.slice.call(root.querySelectorAll('[name=\"' + CSS.escape(value) + '\"]'));\n" +
+        "    case 'xpath': {\n" +
+        "      var it = doc.evaluate(value, root, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null), out = [];\n" +
+        "      for (var i = 0; i < it.snapshotLength; i++) out.push(it.snapshotItem(i));\n" +
+        "      return out;\n" +
+        "    }\n" +
+        "    case 'css': return Array.prototype.slice.call(root.querySelectorAll(value));\n" +
+        "    case 'class': return Array.prototype.slice.call(root.getElementsByClassName(value));\n" +
+        "    case 'tag': return Array.prototype.slice.call(root.getElementsByTagName(value));\n" +
+        "    case 'linkText':\n" +
+        "    case 'partialLinkText': return Array.prototype.filter.call(root.querySelectorAll('a'), function (a) {\n" +
+        "        var t = (a.innerText || a.textContent || '').trim();\n" +
+        "        return by === 'linkText' ? t === value : t.indexOf(value) >= 0;\n" +
+        "      });\n" +
+        "    default: throw new Error('Unsupported By type: ' + by);\n" +
+        "  }\n" +
+        "}\n" +
+        "function __sup_find(by, value, root) {\n" +
+        "  root = root || document;\n" +
+        "  if (by === 'xpath') return (root.ownerDocument || root).evaluate(value, root, null, XPathResult.FIRST_ORDERED_NODE_TYPE, null).singleNodeValue;\n" +
+        "  if (by === 'css') return root.querySelector(value);\n" +
+        "  var all = __sup_findAll(by, value, root);\n" +
+        "  return all.length ? all[0] : null;\n" +
+        "}\n" +
+        "function __sup_read(el, attr) {\n" +
+        "  if (attr === null) return (el.innerText || el.textContent || '').trim();\n" +
+        "  var v = el[attr];\n" +
+        "  if (v === undefined || v === null || typeof v === 'object' || typeof v === 'function') v = el.getAttribute(attr);\n" +
+        "  return v === null || v === undefined ? null : String(v).trim();\n" +
+        "}\n";
+    private static final String JS_BULK_READ = JS_LOCATOR_FUNCS +
+        "var by = arguments[0], locators = arguments[1], attr = arguments[2], out = {};\n" +
+        "for (var key in locators) {\n" +
+        "  try {\n" +
+        "    var el = __sup_find(by, locators[key], document);\n" +
+        "    out[key] = el ? {found: true, value: __sup_read(el, attr)} : {found: false};\n" +
+        "  } catch (err) { out[key] = {found: false, error: String(err)}; }\n" +
+        "}\n" +
+        "return out;";
+    /**
+     * Resolves with the first element matching the locator as soon as a DOM mutation makes it
+     * appear, or with null once the timeout in milliseconds expires.
+     */
+    private static final String JS_OBSERVE_ELEMENT = JS_LOCATOR_FUNCS +
+        "var by = arguments[0], value = arguments[1], timeoutMs = arguments[2];\n" +
+        "var done = arguments[arguments.length - 1];\n" +
+        "var found = __sup_find(by, value, document);\n" +
+        "if (found) { done(found); return; }\n" +
+        "var finished = false, timer = null;\n" +
+        "var observer = new MutationObserver(function () {\n" +
+        "  if (finished) return;\n" +
+        "  var el = __sup_find(by, value, document);\n" +
+        "  if (el) { finished = true; observer.disconnect(); clearTimeout(timer); done(el); }\n" +
+        "});\n" +
+        "observer.observe(document.documentElement || document, {childList: true, subtree: true, attributes: true});\n" +
+        "timer = setTimeout(function () {\n" +
+        "  if (finished) return;\n" +
+        "  finished = true; observer.disconnect(); done(null);\n" +
+        "}, timeoutMs);";
+    /**
+     * Scrolls the container (or the window) to its bottom, then resolves with the rows of
+     * __sup_extract(true) once added nodes settle for a short debounce or the step times out.
+     */
+    private static final String JS_SCROLL_STEP =
+        "var container = arguments[0], debounceMs = arguments[1], timeoutMs = arguments[2];\n" +
+        "var done = arguments[arguments.length - 1];\n" +
+        "var target = container || document.scrollingElement || document.documentElement;\n" +
+        "var before = target.scrollHeight, finished = false, settleTimer = null, hardTimer = null;\n" +
+        "var observer = new MutationObserver(function (mutations) {\n" +
+        "  for (var i = 0; i < mutations.length; i++) {\n" +
+        "    if (mutations[i].addedNodes.length) {\n" +
+        "      clearTimeout(settleTimer);\n" +
+        "      settleTimer = setTimeout(function () { finish(true); }, debounceMs);\n" +
+        "      return;\n" +
+        "    }\n" +
+        "  }\n" +
+        "});\n" +
+        "function finish(added) {\n" +
+        "  if (finished) return;\n" +
+        "  finished = true; observer.disconnect(); clearTimeout(settleTimer); clearTimeout(hardTimer);\n" +
+        "  var result = __sup_extract(true);\n" +
+        "  done({rows: result.rows, height: target.scrollHeight, changed: added || target.scrollHeight !== before});\n" +
+        "}\n" +
+        "observer.observe(container || document.body, {childList: true, subtree: true});\n" +
+        "if (container) { container.scrollTop = container.scrollHeight; } else { window.scrollTo(0, target.scrollHeight); }\n" +
+        "hardTimer = setTimeout(function () { finish(false); }, timeoutMs);";
+    private static final long SCROLL_DEBOUNCE_MILLIS = 100;
+    /**
+     * Scrolls the window in one eased animation driven by requestAnimationFrame, then resolves
+     * with the final position. The duration keeps the stepped schedule: stepMs per stepPx.
+     * Modes: "by" scrolls target pixels, "element" scrolls until the target element is offset
+     * pixels below the top (down only), "bottom" scrolls to the end and continues while lazily
+     * loaded content grows the page. Resolves early with complete false after maxMs.
+     */
+    private static final String JS_SMOOTH_SCROLL =
+        "var mode = arguments[0], target = arguments[1], stepPx = arguments[2], stepMs = arguments[3];\n" +
+        "var offset = arguments[4], maxMs = arguments[5], done = arguments[arguments.length - 1];\n" +
+        "var root = document.scrollingElement || document.documentElement, started = Date.now();\n" +
+        "var frame = document.hidden\n" +
+        "  ? function (f) { setTimeout(function () { f(performance.now()); }, 16); }\n" +
+        "  : function (f) { window.requestAnimationFrame(f); };\n" +
+        "function ease(t) { return t < 0.5 ? 4 * t * t * t : 1 - Math.pow(-2 * t + 2, 3) / 2; }\n" +
+        "function finish(complete) { done({position: Math.round(window.pageYOffset), complete: complete}); }\n" +
+        "function bottom() { return Math.max(0, root.scrollHeight - window.innerHeight); }\n" +
+        "function segment(from, to, next) {\n" +
+        "  var duration = Math.max(16, Math.ceil(Math.abs(to - from) / stepPx) * stepMs), begin = null;\n" +
+        "  frame(function step(now) {\n" +
+        "    if (begin === null) begin = now;\n" +
+        "    var t = Math.min(1, (now - begin) / duration);\n" +
+        "    window.scrollTo(0, from + (to - from) * ease(t));\n" +
+        "    if (t >= 1) { next(); }\n" +
+        "    else if (Date.now() - started >= maxMs) { finish(false); }\n" +
+        "    else { frame(step); }\n" +
+        "  });\n" +
+        "}\n" +
+        "function toBottom() {\n" +
+        "  var goal = bottom(), from = window.pageYOffset;\n" +
+        "  if (goal <= from + 1) { finish(true); }\n" +
+        "  else if (Date.now() - started >= maxMs) { finish(false); }\n" +
+        "  else { segment(from, goal, function () { setTimeout(toBottom, stepMs); }); }\n" +
+        "}\n" +
+        "var start = window.pageYOffset;\n" +
+        "if (mode === 'by') {\n" +
+        "  segment(start, start + target, function () { finish(true); });\n" +
+        "} else if (mode === 'element') {\n" +
+        "  var goal = Math.min(bottom(), Math.max(0, target.getBoundingClientRect().top + start - offset));\n" +
+        "  if (goal <= start) { finish(true); } else { segment(start, goal, function () { finish(true); }); }\n" +
+        "} else {\n" +
+        "  toBottom();\n" +
+        "}";
+    /** Keeps the target element below sticky headers when scrolling to it slowly. */
+    private static final int SMOOTH_SCROLL_OFFSET = 200;
+    /** Upper bound of the element and bottom modes, whose distance is only known in the page. */
+    private static final long SMOOTH_SCROLL_MAX_MILLIS = 60000;
+    /** Expando set on the window before navigating, it disappears with the old document. */
+    private static final String JS_MARK_DOCUMENT = "window.__supNavMarker = true; return location.href;";
+    /**
+     * The marker is gone with the old document, or the document was kept but the url changed
+     * (a same-document navigation, e.g. to a fragment) and the document is complete.
+     */
+    private static final String JS_NEW_DOCUMENT =
+        "if (document.readyState === 'loading') { return false; }\n" +
+        "return !window.__supNavMarker || (location.href !== arguments[0] && document.readyState === 'complete');";
+    /**
+     * Resolves once no Resource Timing entry was added for idleMs, or after timeoutMs.
+     * Fallback of network idle for drivers without DevTools.
+     */
+    private static final String JS_RESOURCES_QUIET =
+        "var idleMs = arguments[0], timeoutMs = arguments[1];\n" +
+        "var done = arguments[arguments.length - 1];\n" +
+        "var start = Date.now(), last = Date.now(), count = performance.getEntriesByType('resource').length;\n" +
+        "(function check() {\n" +
+        "  var now = Date.now(), current = performance.getEntriesByType('resource').length;\n" +
+        "  if (current !== count) { count = current; last = now; }\n" +
+        "  if (now - last >= idleMs) { done(true); return; }\n" +
+        "  if (now - start >= timeoutMs) { done(false); return; }\n" +
+        "  setTimeout(check, 25);\n" +
+        "})();";
+    /** Stamps the current document, the stamp disappears with it. */
+    private static final String JS_STAMP_DOCUMENT = "window.__supDocStamp = arguments[0];";
+    private static final String JS_CHECK_STAMP = "return window.__supDocStamp === arguments[0];";
+    /** Name and result of every result row (two td cells or more) of the bot.sannysoft.com fingerprint table. */
+    private static final String JS_SIGNATURE_ROWS =
+        "var rows = [];\n" +
+        "Array.prototype.forEach.call(document.querySelectorAll('#fp2 > tr'), function (tr) {\n" +
+        "  // Result rows only, like the former //*[@id='fp2']/tr/td[2]: header and single-cell rows are skipped\n" +
+        "  var tds = tr.querySelectorAll(':scope > td');\n" +
+        "  if (tds.length >= 2) { rows.push([tds[0].innerText.trim(), tds[1].innerText.trim()]); }\n" +
+        "});\n" +
+        "return rows;";
+    /**
+     * Rectangle of the element relative to the top document, the offsets of the enclosing
+     * frames added; null inside a cross-origin frame, whose frame element is hidden.
+     */
+    private static final String JS_PAGE_RECT =
+        "var el = arguments[0], r = el.getBoundingClientRect(), x = r.left, y = r.top;\n" +
+        "var w = el.ownerDocument.defaultView;\n" +
+        "while (w !== w.top) {\n" +
+        "  var frame = w.frameElement;\n" +
+        "  if (!frame) { return null; }\n" +
+        "  var fr = frame.getBoundingClientRect(), style = w.parent.getComputedStyle(frame);\n" +
+        "  x += fr.left + frame.clientLeft + parseFloat(style.paddingLeft);\n" +
+        "  y += fr.top + frame.clientTop + parseFloat(style.paddingTop);\n" +
+        "  w = w.parent;\n" +
+        "}\n" +
+        "return [x + w.scrollX, y + w.scrollY, r.width, r.height];";
+    /** Wait with an in-page MutationObserver instead of polling from the Java side. */
+    private boolean eventDrivenWait = false;
+    private SlideTrajectory.Generator trajectoryGenerator = new SlideTrajectory.Generator();
+    private long pollingMillis = 500;
+    /** Script timeout of the session, read on first use and restored after longer async scripts. */
+    private Duration sessionScriptTimeout = null;
+    private final LongSummaryStatistics waitStats = new LongSummaryStatistics();
+    private final LongSummaryStatistics navigationStats = new LongSummaryStatistics();
+    private NetworkIdleTracker networkIdleTracker = null;
+    /** Trace shared by every instance bound to the same driver. */
+    private final ActionTrace trace;
+    private boolean traceDumpOnError = true;
+    private static final int TRACE_DUMP_RECORDS = 32;
+    /** Last error the trace was dumped for, nested actions rethrowing it do not dump again. */
+    private Throwable lastDumpedError = null;
+    private RetryPolicy retryPolicy = new RetryPolicy();
     
     /**
      * Logs messages at DEBUG or INFO level based on GLOBAL_DEBUG_LOG_LEVEL.
@@ -33,8 +289,8 @@ public class DriverAction {
      * @param content Variable number of parameters (String, int, etc.) to log.
      */
     private void makeLog(String format, Object... args) {
-    	if(GLOBAL_DEBUG_LOG_SWTICH) {
-            if (GLOBAL_LOG_LEVEL_DEBUG) {
+    	if(debugLogSwitch()) {
+            if (logLevelDebug()) {
                 logger.debug(format, args);
             } else {
                 logger.info(format, args);
@@ -42,8 +298,20 @@ public class DriverAction {
     	}
 
     }
+    /**
+     * Records a failed action and, once per error, logs the actions that led to it.
+     */
+    private void traceFailure(ActionTrace.ActionType type, String locator, long startNanos, Exception e) {
+        trace.recordFailure(type, locator, startNanos, e);
+        if (traceDumpOnError && e != lastDumpedError) {
+            lastDumpedError = e;
+            logger.error("Last actions on this driver:\n{}", trace.dump(TRACE_DUMP_RECORDS));
+        }
+    }
+
     public DriverAction(WebDriver driver, String inner_by) {
         this.driver = driver;
+        this.trace = ActionTrace.forDriver(driver);
         if(inner_by != null) {
         	this.inner_byString = inner_by;
         }
@@ -57,35 +325,562 @@ public class DriverAction {
      * @return The found WebElement.
      */
     private WebElement wait(String locator, int waitTime) {
+        if (elementCacheEnabled) {
+            WebElement cached = elementCache.get(locator);
+            if (cached != null && documentUnverified) {
+                cached = verifyDocument() ? cached : null;
+            }
+            if (cached != null) {
+                return cached;
+            }
+        }
+        long startNanos = System.nanoTime();
         try {
-            WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(waitTime));
-            WebElement element = wait.until(ExpectedConditions.presenceOfElementLocated(
-            		this.ByLocator(this.inner_byString, locator)));
+            WebElement element = eventDrivenWait ? observeElement(locator, waitTime) : null;
+            if (element == null) {
+                WebDriverWait wait = getWebDriverWait(waitTime);
+                element = wait.until(ExpectedConditions.presenceOfElementLocated(
+                		this.ByLocator(this.inner_byString, locator)));
+            }
+            waitStats.accept(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+            trace.record(ActionTrace.ActionType.WAIT, locator, startNanos);
                 makeLog("Waited for element {}", locator);
-            
+            if (elementCacheEnabled) {
+                if (elementCache.isEmpty()) {
+                    stampDocument();
+                }
+                elementCache.put(locator, element);
+            }
             return element;
         } catch (Exception e) {
+            trace.recordFailure(ActionTrace.ActionType.WAIT, locator, startNanos, e);
             logger.error("Error waiting for element {}: {}", locator, e.getMessage());
             throw e;
         }
     }
 
+    /**
+     * Stamps the document the cached elements belong to, so that a later document change
+     * caused by one of our actions (a click that navigates, a form submit) can be detected.
+     */
+    private void stampDocument() {
+        documentStamp = Long.toHexString(ThreadLocalRandom.current().nextLong());
+        documentUnverified = false;
+        ((JavascriptExecutor) driver).executeScript(JS_STAMP_DOCUMENT, documentStamp);
+    }
+
+    /**
+     * Checks the stamp after an action that may have replaced the document, one round trip
+     * that is skipped while only reads run against the same document.
+     *
+     * @return false if the document changed, the cache is then dropped.
+     */
+    private boolean verifyDocument() {
+        if (Boolean.TRUE.equals(((JavascriptExecutor) driver).executeScript(JS_CHECK_STAMP, documentStamp))) {
+            documentUnverified = false;
+            return true;
+        }
+        makeLog("Document changed, dropping {} cached elements", elementCache.size());
+        elementCache.clear();
+        return false;
+    }
+
+    /**
+     * Marks the cached elements as possibly outdated after an action that may have changed the document.
+     */
+    void markDocumentUnverified() {
+        documentUnverified = true;
+    }
+
+    private static boolean mayChangeDocument(ActionTrace.ActionType type) {
+        return type != ActionTrace.ActionType.GET_ATTRIBUTE && type != ActionTrace.ActionType.CAPTURE
+                && type != ActionTrace.ActionType.WAIT;
+    }
+
+    private WebDriverWait getWebDriverWait(int waitTime) {
+        return waitCache.computeIfAbsent(waitTime, seconds ->
+                new WebDriverWait(driver, Duration.ofSeconds(seconds), Duration.ofMillis(pollingMillis)));
+    }
+
+    /**
+     * Waits for an element with an in-page MutationObserver through executeAsyncScript.
+     *
+     * @param locator  The locator string of the element.
+     * @param waitTime Maximum time to wait in seconds.
+     * @return The element, or null if the observer could not run and polling should take over.
+     * @throws TimeoutException if the element did not show up in time.
+     */
+    private WebElement observeElement(String locator, int waitTime) {
+        // Leave the observer's own timeout room to resolve before the driver gives up
+        Duration previousTimeout = raiseScriptTimeout(waitTime + 1);
+        try {
+            Object result = ((JavascriptExecutor) driver).executeAsyncScript(JS_OBSERVE_ELEMENT,
+                    this.inner_byString, locator, waitTime * 1000L);
+            if (result instanceof WebElement) {
+                return (WebElement) result;
+            }
+            throw new TimeoutException("Element " + locator + " not found after " + waitTime + " seconds");
+        } catch (TimeoutException e) {
+            throw e;
+        } catch (ScriptTimeoutException e) {
+            // The wait time is used up, polling again would double it
+            throw new TimeoutException("Element " + locator + " not found after " + waitTime + " seconds", e);
+        } catch (WebDriverException e) {
+            // The document was replaced mid-wait or scripts are blocked, fall back to polling
+            makeLog("Event driven wait for {} fell back to polling: {}", locator, e.getMessage());
+            return null;
+        } finally {
+            restoreScriptTimeout(previousTimeout);
+        }
+    }
+
+    /**
+     * Raises the session's script timeout for a longer async script, pair it with
+     * {@link #restoreScriptTimeout(Duration)} in a finally block.
+     *
+     * @param seconds The timeout the script needs.
+     * @return The timeout to restore, or null if the session's timeout was already long enough.
+     */
+    private Duration raiseScriptTimeout(int seconds) {
+        if (sessionScriptTimeout == null) {
+            sessionScriptTimeout = driver.manage().timeouts().getScriptTimeout();
+        }
+        Duration required = Duration.ofSeconds(seconds);
+        if (required.compareTo(sessionScriptTimeout) <= 0) {
+            return null;
+        }
+        driver.manage().timeouts().scriptTimeout(required);
+        return sessionScriptTimeout;
+    }
+
+    private void restoreScriptTimeout(Duration previousTimeout) {
+        if (previousTimeout == null) {
+            return;
+        }
+        try {
+            driver.manage().timeouts().scriptTimeout(previousTimeout);
+        } catch (WebDriverException e) {
+            // Do not hide the script's own outcome, e.g. when the session is gone
+            logger.error("Failed to restore the script timeout: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Runs an action on the element matching the locator. Transient failures caused by a
+     * re-render (stale element, intercepted click, element not yet interactable) are retried
+     * in place according to the {@link RetryPolicy}: the element is resolved again after a
+     * short backoff instead of failing the action. Actions that are not safe to replay use
+     * {@link #withElementOnce} instead.
+     *
+     * @param type    The action type, retries are counted per type.
+     * @param locator The locator string of the element.
+     * @param action  The action to run on the element.
+     * @return The result of the action.
+     */
+    private <T> T withElement(ActionTrace.ActionType type, String locator, Function<WebElement, T> action) {
+        int attempt = 1;
+        while (true) {
+            long attemptNanos = System.nanoTime();
+            WebElement element = wait(locator, waitTime());
+            try {
+                T result;
+                try {
+                    result = action.apply(element);
+                } finally {
+                    if (mayChangeDocument(type)) {
+                        documentUnverified = true;
+                    }
+                }
+                if (attempt > 1) {
+                    retryPolicy.recordRecovery(type);
+                }
+                return result;
+            } catch (WebDriverException e) {
+                if (!retryPolicy.shouldRetry(e, attempt)) {
+                    throw e;
+                }
+                trace.recordFailure(type, locator, attemptNanos, e);
+                retryPolicy.recordRetry(type);
+                elementCache.remove(locator);
+                makeLog("Retrying {} on element {} after {}", type, locator, e.getClass().getSimpleName());
+                retryPolicy.backoff(e, attempt);
+                attempt++;
+            }
+        }
+    }
+
+    /**
+     * Runs a pointer action sequence on the element matching the locator, once. A sequence
+     * that failed may have run partly (e.g. pressed and moved a slider), replaying it from the
+     * start would drag from the wrong position, so failures are not retried: the pointer is
+     * released and the error is rethrown for the caller to decide. The one exception is a
+     * cached element gone stale, which fails on the first move to the element before anything
+     * is pressed: the element is resolved again and the sequence replayed once.
+     *
+     * @param type    The action type.
+     * @param locator The locator string of the element.
+     * @param action  The action to run on the element.
+     */
+    private void withElementOnce(ActionTrace.ActionType type, String locator, Consumer<WebElement> action) {
+        WebElement cached = elementCacheEnabled ? elementCache.get(locator) : null;
+        WebElement element = wait(locator, waitTime());
+        // Slides may submit or replace the document, e.g. a captcha solved by the drag
+        documentUnverified = true;
+        try {
+            action.accept(element);
+            return;
+        } catch (StaleElementReferenceException e) {
+            releasePointer(type, locator);
+            elementCache.remove(locator);
+            if (cached == null || element != cached) {
+                throw e;
+            }
+            makeLog("Cached element {} went stale before {}, resolving it again", locator, type);
+        } catch (WebDriverException e) {
+            releasePointer(type, locator);
+            elementCache.remove(locator);
+            throw e;
+        }
+        element = wait(locator, waitTime());
+        try {
+            action.accept(element);
+        } catch (WebDriverException e) {
+            releasePointer(type, locator);
+            elementCache.remove(locator);
+            throw e;
+        }
+    }
+
+    /**
+     * Releases every pressed button and key, so that a failed sequence leaves nothing held down.
+     */
+    private void releasePointer(ActionTrace.ActionType type, String locator) {
+        try {
+            ((Interactive) driver).resetInputState();
+        } catch (WebDriverException releaseError) {
+            logger.error("Failed to release the pointer after {} on {}: {}", type, locator,
+                    releaseError.getMessage());
+        }
+    }
+
+    /**
+     * Drops every cached element, call it after navigating or changing the document
+     * outside of DriverAction.
+     */
+    public void invalidateElementCache() {
+        elementCache.clear();
+    }
+
+    /**
+     * Navigates to the url and waits until the page is ready for the task. Use it with the
+     * "eager" or "none" page load strategy so that driver.get does not wait for every
+     * subresource first. A fragment of the current document is ready at once; a url that
+     * starts a download keeps the current document and is reported as a timeout.
+     *
+     * @param url       The url to open.
+     * @param readiness The condition the page has to meet, see {@link Readiness}.
+     * @return Time to ready in milliseconds, from the navigation request to the condition holding.
+     */
+    public long navigate(String url, Readiness readiness) {
+        invalidateElementCache();
+        // Navigating always returns the driver to the top document of the window
+        framePath.clear();
+        frameElementCache.clear();
+        long startNanos = System.nanoTime();
+        try {
+            // Same gate as the other CDP features, Firefox takes the Resource Timing fallback
+            if (readiness.getType() == Readiness.Type.NETWORK_IDLE && driver instanceof ChromeDriver) {
+                if (networkIdleTracker == null) {
+                    networkIdleTracker = NetworkIdleTracker.forDriver(driver);
+                }
+                networkIdleTracker.reset();
+            }
+            String previousUrl = (String) ((JavascriptExecutor) driver).executeScript(JS_MARK_DOCUMENT);
+            startNanos = System.nanoTime();
+            driver.get(url);
+            if (!isFragmentNavigation(previousUrl, url)) {
+                // With the "none" strategy the previous document may still be loaded at this point
+                getWebDriverWait(waitTime()).until(d ->
+                        (Boolean) ((JavascriptExecutor) d).executeScript(JS_NEW_DOCUMENT, previousUrl));
+            }
+            awaitReadiness(readiness);
+            long readyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            navigationStats.accept(readyMillis);
+            trace.record(ActionTrace.ActionType.NAVIGATE, url, startNanos);
+            makeLog("Navigated to {}, ready ({}) after {} ms", url, readiness, readyMillis);
+            return readyMillis;
+        } catch (Exception e) {
+            traceFailure(ActionTrace.ActionType.NAVIGATE, url, startNanos, e);
+            logger.error("Error navigating to {} waiting for {}: {}", url, readiness, e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * @return Whether the url only moves to a fragment of the current document, which keeps
+     *         the document and its marker.
+     */
+    static boolean isFragmentNavigation(String previousUrl, String url) {
+        int hash = url.indexOf('#');
+        if (previousUrl == null || hash < 0) {
+            return false;
+        }
+        int previousHash = previousUrl.indexOf('#');
+        String previousBase = previousHash < 0 ? previousUrl : previousUrl.substring(0, previousHash);
+        return previousBase.equals(url.substring(0, hash));
+    }
+
+    private void awaitReadiness(Readiness readiness) {
+        switch (readiness.getType()) {
+            case DOM_CONTENT_LOADED:
+                // Already covered by the new document check
+                break;
+            case LOCATOR_PRESENT:
+                wait(readiness.getLocator(), waitTime());
+                break;
+            case NETWORK_IDLE:
+                long timeoutMillis = waitTime() * 1000L;
+                if (networkIdleTracker != null) {
+                    networkIdleTracker.awaitIdle(readiness.getIdleMillis(), timeoutMillis);
+                } else {
+                    Duration previousTimeout = raiseScriptTimeout(waitTime() + 1);
+                    Object quiet;
+                    try {
+                        quiet = ((JavascriptExecutor) driver).executeAsyncScript(JS_RESOURCES_QUIET,
+                                readiness.getIdleMillis(), timeoutMillis);
+                    } finally {
+                        restoreScriptTimeout(previousTimeout);
+                    }
+                    if (!Boolean.TRUE.equals(quiet)) {
+                        throw new TimeoutException("Network not idle after " + timeoutMillis + " ms");
+                    }
+                }
+                break;
+            case CUSTOM:
+                getWebDriverWait(waitTime()).until(d -> readiness.getPredicate().test(d));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown readiness type: " + readiness.getType());
+        }
+    }
+
+    /**
+     * Serializes the current document with one script call and parses it in-process, any
+     * number of lookups can then run on the snapshot without further round trips.
+     *
+     * @return The parsed snapshot, queried with this instance's locator strategy.
+     */
+    public PageSnapshot snapshot() {
+        try {
+            return PageSnapshot.parse(serializeDocument(), this.inner_byString);
+        } catch (Exception e) {
+            logger.error("Failed to take page snapshot: {}", e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Serializes the current document, then parses it on a worker pool: the driver is free
+     * for the next navigation as soon as this method returns.
+     *
+     * @return A future completed with the parsed snapshot.
+     */
+    public CompletableFuture<PageSnapshot> snapshotAsync() {
+        try {
+            return PageSnapshot.parseAsync(serializeDocument(), this.inner_byString);
+        } catch (Exception e) {
+            logger.error("Failed to take page snapshot: {}", e.getMessage());
+            throw e;
+        }
+    }
+
+    private String serializeDocument() {
+        long startNanos = System.nanoTime();
+        String xhtml = (String) ((JavascriptExecutor) driver).executeScript(PageSnapshot.JS_SERIALIZE);
+        makeLog("Serialized document of {} chars in {} ms", xhtml.length(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        return xhtml;
+    }
+
+    /**
+     * Captures a screenshot and hands it to the pipeline, the driver only waits for the capture.
+     * Chrome captures through CDP Page.captureScreenshot with the format, quality and clip of
+     * the options; other browsers fall back to a PNG of the viewport. A full page capture without
+     * a clip is clipped to the CSS content size of the page, an element clip may be inside frames.
+     *
+     * @param pipeline The pipeline decoding, transforming and writing the screenshot.
+     * @param name     File name without extension.
+     * @param options  Format, quality and clip options.
+     * @return A future completed once the file is written.
+     */
+    public CompletableFuture<ArtifactPipeline.Artifact> captureScreenshot(ArtifactPipeline pipeline, String name,
+            ArtifactPipeline.ScreenshotOptions options) {
+        long startNanos = System.nanoTime();
+        try {
+            ArtifactPipeline.Kind kind = options.kind();
+            String base64;
+            if (driver instanceof HasCdp) {
+                Map<String, Object> command = new HashMap<>();
+                command.put("format", kind == ArtifactPipeline.Kind.SCREENSHOT_JPEG ? "jpeg" : options.getFormat());
+                if (options.getQuality() != null && kind != ArtifactPipeline.Kind.SCREENSHOT_PNG) {
+                    command.put("quality", options.getQuality());
+                }
+                double[] clip = options.getClip();
+                if (options.getClipLocator() != null) {
+                    clip = pageRect(options.getClipLocator());
+                } else if (clip == null && options.isFullPage()) {
+                    clip = contentRect();
+                }
+                if (clip != null) {
+                    command.put("clip", Map.of("x", clip[0], "y", clip[1], "width", clip[2], "height", clip[3], "scale", 1));
+                }
+                command.put("captureBeyondViewport", options.isFullPage() || clip != null);
+                base64 = (String) ((HasCdp) driver).executeCdpCommand("Page.captureScreenshot", command).get("data");
+            } else {
+                kind = ArtifactPipeline.Kind.SCREENSHOT_PNG;
+                base64 = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BASE64);
+            }
+            trace.record(ActionTrace.ActionType.CAPTURE, name, startNanos);
+            makeLog("Captured screenshot {}", name);
+            return pipeline.submit(kind, name, base64, System.nanoTime() - startNanos);
+        } catch (Exception e) {
+            traceFailure(ActionTrace.ActionType.CAPTURE, name, startNanos, e);
+            logger.error("Failed to capture screenshot {}: {}", name, e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * @return The rectangle of the element in CSS pixels of the top document, as CDP clips expect.
+     */
+    private double[] pageRect(String locator) {
+        Object rect = withElement(ActionTrace.ActionType.CAPTURE, locator,
+                element -> ((JavascriptExecutor) driver).executeScript(JS_PAGE_RECT, element));
+        if (!(rect instanceof List)) {
+            throw new UnsupportedOperationException("Cannot clip to an element inside a cross-origin frame: " + locator);
+        }
+        List<?> values = (List<?>) rect;
+        double[] clip = new double[4];
+        for (int i = 0; i < clip.length; i++) {
+            clip[i] = ((Number) values.get(i)).doubleValue();
+        }
+        return clip;
+    }
+
+    /**
+     * @return The content rectangle of the page in CSS pixels, from CDP Page.getLayoutMetrics.
+     */
+    @SuppressWarnings("unchecked")
+    private double[] contentRect() {
+        Map<String, Object> metrics = ((HasCdp) driver).executeCdpCommand("Page.getLayoutMetrics", Map.of());
+        // cssContentSize is in CSS pixels, contentSize of older browsers is in device pixels
+        Map<String, Object> size = (Map<String, Object>) metrics.getOrDefault("cssContentSize", metrics.get("contentSize"));
+        return new double[] {((Number) size.get("x")).doubleValue(), ((Number) size.get("y")).doubleValue(),
+                ((Number) size.get("width")).doubleValue(), ((Number) size.get("height")).doubleValue()};
+    }
+
+    /**
+     * Captures the page source and hands it to the pipeline.
+     *
+     * @param pipeline The pipeline writing the file.
+     * @param name     File name without extension.
+     * @return A future completed once the file is written.
+     */
+    public CompletableFuture<ArtifactPipeline.Artifact> capturePageSource(ArtifactPipeline pipeline, String name) {
+        long startNanos = System.nanoTime();
+        try {
+            String source = driver.getPageSource();
+            trace.record(ActionTrace.ActionType.CAPTURE, name, startNanos);
+            return pipeline.submit(ArtifactPipeline.Kind.PAGE_SOURCE, name, source, System.nanoTime() - startNanos);
+        } catch (Exception e) {
+            traceFailure(ActionTrace.ActionType.CAPTURE, name, startNanos, e);
+            logger.error("Failed to capture page source {}: {}", name, e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Captures the page with its resources as MHTML through CDP Page.captureSnapshot, Chrome only.
+     *
+     * @param pipeline The pipeline writing the file.
+     * @param name     File name without extension.
+     * @return A future completed once the file is written.
+     */
+    public CompletableFuture<ArtifactPipeline.Artifact> captureMhtml(ArtifactPipeline pipeline, String name) {
+        long startNanos = System.nanoTime();
+        try {
+            if (!(driver instanceof HasCdp)) {
+                throw new UnsupportedOperationException("MHTML capture requires a Chromium based driver");
+            }
+            String mhtml = (String) ((HasCdp) driver)
+                    .executeCdpCommand("Page.captureSnapshot", Map.of("format", "mhtml")).get("data");
+            trace.record(ActionTrace.ActionType.CAPTURE, name, startNanos);
+            return pipeline.submit(ArtifactPipeline.Kind.MHTML, name, mhtml, System.nanoTime() - startNanos);
+        } catch (Exception e) {
+            traceFailure(ActionTrace.ActionType.CAPTURE, name, startNanos, e);
+            logger.error("Failed to capture MHTML {}: {}", name, e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Starts a pipeline of queued interactions performed as one composed Actions sequence.
+     *
+     * @return A new, empty pipeline bound to this instance.
+     */
+    public ActionPipeline pipeline() {
+        return new ActionPipeline(this);
+    }
+
+    /**
+     * Starts recording JSON responses of the page through DevTools, see {@link NetworkCapture}.
+     *
+     * @param parameters Map containing capture parameters: urlPattern, mimeTypes, maxEntries,
+     *                   maxBufferBytes, spillDir.
+     * @return The running capture, close it to stop recording.
+     */
+    public NetworkCapture startNetworkCapture(Map<String, String> parameters) {
+        try {
+            return new NetworkCapture(driver, parameters);
+        } catch (Exception e) {
+            logger.error("Failed to start network capture: {}", e.getMessage());
+            throw e;
+        }
+    }
+
+    WebDriver getDriver() {
+        return driver;
+    }
+
+    String getInnerBy() {
+        return inner_byString;
+    }
+
+    WebElement waitFor(String locator) {
+        return wait(locator, waitTime());
+    }
+
     /**
      * Clicks on a web element.
      *
      * @param locator      The By locator of the element.
      * @param elementName  The name of the element for logging.
      * @param log          Whether to log the action.
-     * @return A list of window handles.
+     * @return The window handles, fetched lazily on first access of the list.
      */
     public List<String> clickElement(String locator, String elementName) {
+        long startNanos = System.nanoTime();
         try {
-            WebElement element = wait(locator, GLOBAL_WAIT_TIME);
-            element.click();
+            withElement(ActionTrace.ActionType.CLICK, locator, element -> {
+                element.click();
+                return null;
+            });
+            trace.record(ActionTrace.ActionType.CLICK, locator, startNanos);
                 makeLog("Clicked on element {}", elementName);
             
-            return List.copyOf(driver.getWindowHandles());
+            return windowHandlesAfterAction();
         } catch (Exception e) {
+            traceFailure(ActionTrace.ActionType.CLICK, locator, startNanos, e);
             logger.error("Failed to click element {}: {}", elementName, e.getMessage());
             throw e;
         }
@@ -97,17 +892,21 @@ public class DriverAction {
      * @param locator      The By locator of the element.
      * @param elementName  The name of the element for logging.
      * @param log          Whether to log the action.
-     * @return A list of window handles.
+     * @return The window handles, fetched lazily on first access of the list.
      */
     public List<String> doubleClick(String locator, String elementName) {
+        long startNanos = System.nanoTime();
         try {
-            WebElement element = wait(locator, GLOBAL_WAIT_TIME);
-            Actions actions = new Actions(driver);
-            actions.doubleClick(element).perform();
+            withElement(ActionTrace.ActionType.DOUBLE_CLICK, locator, element -> {
+                new Actions(driver).doubleClick(element).perform();
+                return null;
+            });
+            trace.record(ActionTrace.ActionType.DOUBLE_CLICK, locator, startNanos);
                 makeLog("Double clicked on element {}", elementName);
             
-            return List.copyOf(driver.getWindowHandles());
+            return windowHandlesAfterAction();
         } catch (Exception e) {
+            traceFailure(ActionTrace.ActionType.DOUBLE_CLICK, locator, startNanos, e);
             logger.error("Failed to double click element {}: {}", elementName, e.getMessage());
             throw e;
         }
@@ -119,17 +918,21 @@ public class DriverAction {
      * @param locator      The By locator of the element.
      * @param elementName  The name of the element for logging.
      * @param log          Whether to log the action.
-     * @return A list of window handles.
+     * @return The window handles, fetched lazily on first access of the list.
      */
     public List<String> rightClick(String locator, String elementName) {
+        long startNanos = System.nanoTime();
         try {
-            WebElement element = wait(locator, GLOBAL_WAIT_TIME);
-            Actions actions = new Actions(driver);
-            actions.contextClick(element).perform();
+            withElement(ActionTrace.ActionType.RIGHT_CLICK, locator, element -> {
+                new Actions(driver).contextClick(element).perform();
+                return null;
+            });
+            trace.record(ActionTrace.ActionType.RIGHT_CLICK, locator, startNanos);
                 makeLog("Right clicked on element {}", elementName);
             
-            return List.copyOf(driver.getWindowHandles());
+            return windowHandlesAfterAction();
         } catch (Exception e) {
+            traceFailure(ActionTrace.ActionType.RIGHT_CLICK, locator, startNanos, e);
             logger.error("Failed to right click element {}: {}", elementName, e.getMessage());
             throw e;
         }
@@ -144,18 +947,189 @@ public class DriverAction {
      * @return The attribute value.
      */
     public String getElementAttribute(String locator, String attribute) {
+        long startNanos = System.nanoTime();
         try {
-            WebElement element = wait(locator, GLOBAL_WAIT_TIME);
-            String result = element.getAttribute(attribute).trim();
-            makeLog("Get attribute " + attribute + " on element " + locator + ", result: " + result);
+            String result = withElement(ActionTrace.ActionType.GET_ATTRIBUTE, locator, element -> element.getAttribute(attribute).trim());
+            trace.record(ActionTrace.ActionType.GET_ATTRIBUTE, locator, startNanos);
+            makeLog("Get attribute {} on element {}, result: {}", attribute, locator, result);
             
             return result;
         } catch (Exception e) {
-            logger.error("Failed to get attribute" + attribute + "from element "+locator+": " + e.getMessage());
+            traceFailure(ActionTrace.ActionType.GET_ATTRIBUTE, locator, startNanos, e);
+            logger.error("Failed to get attribute {} from element {}: {}", attribute, locator, e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Reads one attribute from many elements with a single script call, the locators use
+     * the instance's locator strategy. No waiting is done, call it once the page is ready.
+     *
+     * @param locators  Field name to locator string.
+     * @param attribute The attribute name, or null to read the visible text.
+     * @return Field name to trimmed value in the order of the input map, missing elements
+     *         and absent attributes both map to null, use
+     *         {@link #getElementsAttribute(Map, String, Set)} to tell them apart.
+     */
+    public Map<String, String> getElementsAttribute(Map<String, String> locators, String attribute) {
+        return getElementsAttribute(locators, attribute, null);
+    }
+
+    /**
+     * Reads one attribute from many elements with a single script call, the locators use
+     * the instance's locator strategy. No waiting is done, call it once the page is ready.
+     *
+     * @param locators  Field name to locator string.
+     * @param attribute The attribute name, or null to read the visible text.
+     * @param missing   Receives the field names whose element was not found, may be null.
+     * @return Field name to trimmed value in the order of the input map, a field maps to null
+     *         when its element is missing (its name is then added to missing) or when the
+     *         element has no such attribute. Missing elements are logged instead of throwing.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, String> getElementsAttribute(Map<String, String> locators, String attribute, Set<String> missing) {
+        long startNanos = System.nanoTime();
+        try {
+            Map<String, Object> raw = (Map<String, Object>) ((JavascriptExecutor) driver)
+                    .executeScript(JS_BULK_READ, this.inner_byString, locators, attribute);
+            Map<String, String> result = new LinkedHashMap<>();
+            List<String> notFound = new ArrayList<>();
+            for (String key : locators.keySet()) {
+                Map<String, Object> entry = (Map<String, Object>) raw.get(key);
+                if (entry != null && Boolean.TRUE.equals(entry.get("found"))) {
+                    Object value = entry.get("value");
+                    result.put(key, value == null ? null : value.toString());
+                } else {
+                    result.put(key, null);
+                    if (missing != null) {
+                        missing.add(key);
+                    }
+                    notFound.add(entry != null && entry.get("error") != null
+                            ? key + " (" + entry.get("error") + ")" : key);
+                }
+            }
+            if (!notFound.isEmpty()) {
+                logger.warn("Bulk read found no element for: {}", notFound);
+            }
+            trace.record(ActionTrace.ActionType.BULK_READ, attribute, startNanos);
+            makeLog("Bulk read {} fields, {} missing", locators.size(), notFound.size());
+            return result;
+        } catch (Exception e) {
+            traceFailure(ActionTrace.ActionType.BULK_READ, attribute, startNanos, e);
+            logger.error("Failed to bulk read attribute {}: {}", attribute, e.getMessage());
             throw e;
         }
     }
 
+    /**
+     * Reads the visible text of many elements with a single script call.
+     *
+     * @param locators Field name to locator string.
+     * @return Field name to trimmed text, missing elements map to null.
+     */
+    public Map<String, String> getElementsText(Map<String, String> locators) {
+        return getElementsAttribute(locators, null);
+    }
+
+    /**
+     * Reads the visible text of many elements with a single script call.
+     *
+     * @param locators Field name to locator string.
+     * @param missing  Receives the field names whose element was not found, may be null.
+     * @return Field name to trimmed text, missing elements map to null.
+     */
+    public Map<String, String> getElementsText(Map<String, String> locators, Set<String> missing) {
+        return getElementsAttribute(locators, null, missing);
+    }
+
+    /**
+     * Extracts every row of a listing page with a single script call.
+     *
+     * @param template The extraction template, compiled once per locator strategy.
+     * @return One map per row, keyed by field name in template order, ready for SaveToolKit.csvSave.
+     */
+    public List<Map<String, String>> extractList(ExtractionTemplate template) {
+        long startNanos = System.nanoTime();
+        try {
+            List<Map<String, String>> rows = toRows(runExtraction(template).get("rows"), template);
+            trace.record(ActionTrace.ActionType.EXTRACT, template.getRowLocator(), startNanos);
+            makeLog("Extracted {} rows with row locator {}", rows.size(), template.getRowLocator());
+            return rows;
+        } catch (Exception e) {
+            traceFailure(ActionTrace.ActionType.EXTRACT, template.getRowLocator(), startNanos, e);
+            logger.error("Failed to extract rows {}: {}", template.getRowLocator(), e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Extracts rows page after page, following the template's next page locator
+     * until there is no next page or the row budget is reached.
+     *
+     * @param template  The extraction template with a next page locator.
+     * @param rowBudget Maximum number of rows to return.
+     * @return The extracted rows, at most rowBudget of them.
+     */
+    public List<Map<String, String>> extractPages(ExtractionTemplate template, int rowBudget) {
+        List<Map<String, String>> collected = new ArrayList<>();
+        int page = 0;
+        long startNanos = System.nanoTime();
+        try {
+            while (collected.size() < rowBudget) {
+                Map<String, Object> result = runExtraction(template);
+                List<Map<String, String>> rows = toRows(result.get("rows"), template);
+                page++;
+                for (Map<String, String> row : rows) {
+                    if (collected.size() >= rowBudget) {
+                        break;
+                    }
+                    collected.add(row);
+                }
+                Object next = result.get("next");
+                Object marker = result.get("marker");
+                if (collected.size() >= rowBudget || !(next instanceof WebElement) || !(marker instanceof WebElement)) {
+                    break;
+                }
+                ((WebElement) next).click();
+                // The page is considered turned once the previous first row leaves the document
+                getWebDriverWait(waitTime())
+                        .until(ExpectedConditions.stalenessOf((WebElement) marker));
+                elementCache.clear();
+            }
+            trace.record(ActionTrace.ActionType.EXTRACT, template.getRowLocator(), startNanos);
+            makeLog("Extracted {} rows from {} pages", collected.size(), page);
+            return collected;
+        } catch (Exception e) {
+            traceFailure(ActionTrace.ActionType.EXTRACT, template.getRowLocator(), startNanos, e);
+            logger.error("Failed to extract pages {} after {} rows: {}",
+                    template.getRowLocator(), collected.size(), e.getMessage());
+            throw e;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> runExtraction(ExtractionTemplate template) {
+        String script = template.compile(this.inner_byString, JS_LOCATOR_FUNCS);
+        return (Map<String, Object>) ((JavascriptExecutor) driver).executeScript(script);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, String>> toRows(Object rawRows, ExtractionTemplate template) {
+        List<Map<String, String>> rows = new ArrayList<>();
+        // Rebuild each row in template order so that every row lines up with the CSV header
+        Set<String> fieldNames = template.getFields().keySet();
+        for (Object rawRow : (List<Object>) rawRows) {
+            Map<String, Object> cells = (Map<String, Object>) rawRow;
+            Map<String, String> row = new LinkedHashMap<>();
+            for (String field : fieldNames) {
+                Object value = cells.get(field);
+                row.put(field, value == null ? null : value.toString());
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
     /**
      * Sends keys to a web element.
      *
@@ -164,12 +1138,17 @@ public class DriverAction {
      * @param log      Whether to log the action.
      */
     public void inputKeys(String locator, String keys) {
+        long startNanos = System.nanoTime();
         try {
-            WebElement element = wait(locator, GLOBAL_WAIT_TIME);
-            element.sendKeys(keys);
+            withElement(ActionTrace.ActionType.INPUT, locator, element -> {
+                element.sendKeys(keys);
+                return null;
+            });
+            trace.record(ActionTrace.ActionType.INPUT, locator, startNanos);
             makeLog("Input text '{}' into element {}", keys, locator);
             
         } catch (Exception e) {
+            traceFailure(ActionTrace.ActionType.INPUT, locator, startNanos, e);
             logger.error("Failed to input keys into element {}: {}", locator, e.getMessage());
             throw e;
         }
@@ -202,37 +1181,74 @@ public class DriverAction {
      * @param slowWait     The wait time between steps in seconds.
      */
     public void slideHorizontal(String locator, int offset, boolean log, boolean slowly, int slowStep, double slowWait) {
+        long startNanos = System.nanoTime();
         try {
-            WebElement element = wait(locator, GLOBAL_WAIT_TIME);
-            Actions actions = new Actions(driver);
             if (!slowly) {
-                actions.clickAndHold(element).moveByOffset(offset, 0).release().perform();
+                withElementOnce(ActionTrace.ActionType.SLIDE, locator, element ->
+                        new Actions(driver).clickAndHold(element).moveByOffset(offset, 0).release().perform());
             } else {
-                actions.clickAndHold(element).perform();
-                int i = 0;
-                while (i < offset) {
-                    try {
-                        Thread.sleep((long) (slowWait * 1000));
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        logger.error("Thread interrupted: {}", e.getMessage());
-                        throw new RuntimeException(e);
-                    }
-                    int moveStep = Math.min(slowStep, offset - i);
-                    actions.moveByOffset(moveStep, 0).perform();
-                    i += moveStep;
-                }
-                actions.release().perform();
+                // Keep the pace of the former step-by-step drag, but replay it in the browser
+                long steps = Math.max(1, (Math.abs(offset) + slowStep - 1) / Math.max(1, slowStep));
+                slide(locator, offset, 0, (long) (slowWait * 1000 * steps));
             }
+            trace.record(ActionTrace.ActionType.SLIDE, locator, startNanos);
             if (log) {
             	makeLog("Slide element {} by offset {}", locator, String.valueOf(offset));
             }
         } catch (Exception e) {
+            traceFailure(ActionTrace.ActionType.SLIDE, locator, startNanos, e);
             logger.error("Failed to slide horizontally on element {}: {}", locator, e.getMessage());
             throw e;
         }
     }
 
+    /**
+     * Drags a web element vertically along a humanlike trajectory.
+     *
+     * @param locator        The locator string of the element.
+     * @param offset         The vertical offset.
+     * @param durationMillis Approximate duration of the drag.
+     */
+    public void slideVertical(String locator, int offset, long durationMillis) {
+        slide(locator, 0, offset, durationMillis);
+    }
+
+    /**
+     * Drags a web element by a 2-D offset along a humanlike trajectory (ease-out curve,
+     * overshoot and jitter), sent to the browser as a single pointer action sequence.
+     *
+     * @param locator        The locator string of the element.
+     * @param dx             The horizontal offset.
+     * @param dy             The vertical offset.
+     * @param durationMillis Approximate duration of the drag.
+     */
+    public void slide(String locator, int dx, int dy, long durationMillis) {
+        slide(locator, trajectoryGenerator.generate(dx, dy, durationMillis));
+    }
+
+    /**
+     * Drags a web element along a precomputed trajectory, e.g. one replayed from a seeded generator.
+     * A failed drag is not retried, it may have moved the element part of the way; only a cached
+     * element gone stale before the press is resolved again.
+     *
+     * @param locator    The locator string of the element.
+     * @param trajectory The trajectory to replay.
+     */
+    public void slide(String locator, SlideTrajectory trajectory) {
+        long startNanos = System.nanoTime();
+        try {
+            withElementOnce(ActionTrace.ActionType.SLIDE, locator, element ->
+                    ((Interactive) driver).perform(Collections.singletonList(trajectory.toSequence(element))));
+            trace.record(ActionTrace.ActionType.SLIDE, locator, startNanos);
+            makeLog("Slide element {} along {} moves in {} ms", locator,
+                    trajectory.getMoves().size(), trajectory.getTotalMillis());
+        } catch (Exception e) {
+            traceFailure(ActionTrace.ActionType.SLIDE, locator, startNanos, e);
+            logger.error("Failed to slide element {}: {}", locator, e.getMessage());
+            throw e;
+        }
+    }
+
     /**
      * Scrolls the web page down.
      *
@@ -240,56 +1256,36 @@ public class DriverAction {
      * @param pixel      The number of pixels to scroll (optional).
      * @param sleepTime  The sleep time in seconds between scrolls.
      * @param log        Whether to log the action.
-     * @param slowly     Whether to perform the scroll slowly.
+     * @param slowly     Whether to perform the scroll slowly, as one eased animation run inside
+     *                   the page that takes sleepTime per slowStep pixels.
      * @param slowStep   The step size for slow scrolling.
      */
     public void scrollDown(String locator, Integer pixel, double sleepTime, boolean slowly, int slowStep) {
+        long startNanos = System.nanoTime();
         try {
             JavascriptExecutor js = (JavascriptExecutor) driver;
             if (pixel != null) {
                 Thread.sleep((long) (sleepTime * 4000));
                 if (slowly) {
-                    for (int i = 0; i < pixel; i += slowStep) {
-                        int scrollAmount = Math.min(slowStep, pixel - i);
-                        js.executeScript("window.scrollBy(0, " + scrollAmount + ");");
-                        Thread.sleep((long) (sleepTime * 1000));
-                    }
+                    long steps = (Math.abs(pixel) + Math.max(1, slowStep) - 1) / Math.max(1, slowStep);
+                    smoothScroll("by", pixel, slowStep, sleepTime, steps * (long) (sleepTime * 1000) + 1000);
                 } else {
                     js.executeScript("window.scrollBy(0, " + pixel + ");");
                 }
                 	makeLog("Scroll down {} pixels", pixel);
                 
             } else if (locator != null) {
-                WebElement element = wait(locator, GLOBAL_WAIT_TIME);
                 if (slowly) {
-                    Long currentPosition = (Long) js.executeScript("return window.pageYOffset;");
-                    Long targetPosition = (long) element.getLocation().getY();
-                    targetPosition = targetPosition > 200 ? targetPosition - 200 : 0;
-                    while (currentPosition < targetPosition) {
-                        currentPosition += slowStep;
-                        if (currentPosition > targetPosition) {
-                            currentPosition = targetPosition;
-                        }
-                        js.executeScript("window.scrollTo(0, " + currentPosition + ");");
-                        Thread.sleep((long) (sleepTime * 1000));
-                    }
+                    withElement(ActionTrace.ActionType.SCROLL, locator,
+                            element -> smoothScroll("element", element, slowStep, sleepTime, SMOOTH_SCROLL_MAX_MILLIS));
                 } else {
-                    js.executeScript("arguments[0].scrollIntoView();", element);
+                    withElement(ActionTrace.ActionType.SCROLL, locator, element -> js.executeScript("arguments[0].scrollIntoView();", element));
                 }
                    makeLog("Scroll down to element {}", locator);
                 
             } else {
                 if (slowly) {
-                    Long height = (Long) js.executeScript("return document.body.scrollHeight");
-                    Long newHeight = height;
-                    while (height < newHeight) {
-                        for (long i = height; i < newHeight; i += slowStep) {
-                            js.executeScript("window.scrollTo(0, " + i + ");");
-                            Thread.sleep((long) (sleepTime * 1000));
-                        }
-                        height = newHeight;
-                        newHeight = (Long) js.executeScript("return document.body.scrollHeight");
-                    }
+                    smoothScroll("bottom", null, slowStep, sleepTime, SMOOTH_SCROLL_MAX_MILLIS);
                 } else {
                     Thread.sleep((long) (sleepTime * 4000));
                     js.executeScript("window.scrollTo(0, 10000);");
@@ -297,12 +1293,99 @@ public class DriverAction {
                 makeLog("Scroll down to the bottom");
                 
             }
+            trace.record(ActionTrace.ActionType.SCROLL, locator, startNanos);
         } catch (Exception e) {
+            traceFailure(ActionTrace.ActionType.SCROLL, locator, startNanos, e);
             logger.error("Failed to scroll down: {}", e.getMessage());
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Runs a slow scroll as a single async script, see {@link #JS_SMOOTH_SCROLL}, so that
+     * neither the Java thread nor the driver connection is busy while the page scrolls.
+     *
+     * @param mode      "by", "element" or "bottom".
+     * @param target    Pixels for "by", the WebElement for "element", null for "bottom".
+     * @param slowStep  Pixels per step of the easing schedule.
+     * @param sleepTime Seconds per step of the easing schedule.
+     * @param maxMillis Time after which the scroll stops where it is.
+     * @return The final scroll position.
+     */
+    @SuppressWarnings("unchecked")
+    private long smoothScroll(String mode, Object target, int slowStep, double sleepTime, long maxMillis) {
+        Duration previousTimeout = raiseScriptTimeout((int) (maxMillis / 1000) + 5);
+        Map<String, Object> result;
+        try {
+            result = (Map<String, Object>) ((JavascriptExecutor) driver).executeAsyncScript(
+                    JS_SMOOTH_SCROLL, mode, target, Math.max(1, slowStep), (long) (sleepTime * 1000),
+                    SMOOTH_SCROLL_OFFSET, maxMillis);
+        } finally {
+            restoreScriptTimeout(previousTimeout);
+        }
+        long position = ((Number) result.get("position")).longValue();
+        if (!Boolean.TRUE.equals(result.get("complete"))) {
+            makeLog("Slow scroll ({}) stopped at {} after {} ms", mode, position, maxMillis);
+        }
+        return position;
+    }
+
+    /**
+     * Harvests an infinite-scroll feed: scrolls to the bottom, waits only until new content
+     * is observed, and hands the rows that appeared to the callback. Stops once a scroll
+     * step brings no new content or the row or time budget is reached.
+     *
+     * @param template         Extraction template describing the feed items.
+     * @param containerLocator Locator of the scrolling container, null to scroll the window.
+     * @param rowBudget        Maximum number of rows to harvest.
+     * @param timeBudgetMillis Maximum total harvesting time.
+     * @param stepTimeoutMillis How long a scroll step waits for new content before the feed is considered exhausted.
+     * @param onItems          Called with each batch of new rows, may be null.
+     * @return Every harvested row, at most rowBudget of them.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Map<String, String>> harvestScroll(ExtractionTemplate template, String containerLocator,
+            int rowBudget, long timeBudgetMillis, long stepTimeoutMillis,
+            Consumer<List<Map<String, String>>> onItems) {
+        List<Map<String, String>> harvested = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeBudgetMillis);
+        int steps = 0;
+        long startNanos = System.nanoTime();
+        Duration previousTimeout = null;
+        try {
+            WebElement container = containerLocator == null ? null : wait(containerLocator, waitTime());
+            String script = template.compileFunction(this.inner_byString, JS_LOCATOR_FUNCS) + JS_SCROLL_STEP;
+            previousTimeout = raiseScriptTimeout((int) TimeUnit.MILLISECONDS.toSeconds(stepTimeoutMillis) + 2);
+            while (harvested.size() < rowBudget && System.nanoTime() < deadline) {
+                Map<String, Object> result = (Map<String, Object>) ((JavascriptExecutor) driver)
+                        .executeAsyncScript(script, container, SCROLL_DEBOUNCE_MILLIS, stepTimeoutMillis);
+                steps++;
+                List<Map<String, String>> rows = toRows(result.get("rows"), template);
+                if (rows.size() > rowBudget - harvested.size()) {
+                    rows = rows.subList(0, rowBudget - harvested.size());
+                }
+                if (!rows.isEmpty()) {
+                    harvested.addAll(rows);
+                    if (onItems != null) {
+                        onItems.accept(rows);
+                    }
+                }
+                if (!Boolean.TRUE.equals(result.get("changed"))) {
+                    break;
+                }
+            }
+            trace.record(ActionTrace.ActionType.HARVEST, template.getRowLocator(), startNanos);
+            makeLog("Harvested {} rows in {} scroll steps", harvested.size(), steps);
+            return harvested;
+        } catch (Exception e) {
+            traceFailure(ActionTrace.ActionType.HARVEST, template.getRowLocator(), startNanos, e);
+            logger.error("Failed to harvest scroll feed after {} rows: {}", harvested.size(), e.getMessage());
+            throw e;
+        } finally {
+            restoreScriptTimeout(previousTimeout);
+        }
+    }
+
     /**
      * Adds cookies to the browser.
      *
@@ -311,6 +1394,7 @@ public class DriverAction {
      */
     @SuppressWarnings("unchecked")
     public void addCookies(Object cookieInstance) {
+        long startNanos = System.nanoTime();
         try {
             if (cookieInstance instanceof Map) {
                 Map<String, Object> cookie = (Map<String, Object>) cookieInstance;
@@ -321,7 +1405,9 @@ public class DriverAction {
                     addSingleCookie(cookie);
                 }
             }
+            trace.record(ActionTrace.ActionType.ADD_COOKIES, null, startNanos);
         } catch (Exception e) {
+            traceFailure(ActionTrace.ActionType.ADD_COOKIES, null, startNanos, e);
             logger.error("Failed to add cookies: {}", e.getMessage());
             throw e;
         }
@@ -366,22 +1452,23 @@ public class DriverAction {
      * @return The title of the current window after switching.
      */
     public String windowSwitch(List<Object> actionList, boolean log) {
+        long startNanos = System.nanoTime();
         try {
-            List<String> windowHandles = List.copyOf(driver.getWindowHandles());
             for (Object action : actionList) {
                 if (action instanceof Integer) {
                     int index = (Integer) action;
-                    if (index >= 0 && index < windowHandles.size()) {
-                        driver.switchTo().window(windowHandles.get(index));
-                        if (log) {
-                        	makeLog("Switched to window {}", driver.getTitle());
-                        }
-                    } else {
-                        throw new IndexOutOfBoundsException("Window index out of range: " + index);
+                    String handle = switchToWindow(index);
+                    if (log) {
+                    	makeLog("Switched to window {} ({})", index, handle);
                     }
                 } else if (action instanceof Runnable) {
                     Runnable func = (Runnable) action;
-                    func.run();
+                    try {
+                        func.run();
+                    } finally {
+                        // The action may have switched windows or frames itself
+                        resetContext();
+                    }
                 } else {
                     throw new IllegalArgumentException("ActionList items must be either Integer or Runnable");
                 }
@@ -389,32 +1476,147 @@ public class DriverAction {
             if (log) {
             	makeLog("Window switch completed");
             }
+            trace.record(ActionTrace.ActionType.WINDOW_SWITCH, null, startNanos);
             return driver.getTitle();
         } catch (Exception e) {
+            traceFailure(ActionTrace.ActionType.WINDOW_SWITCH, null, startNanos, e);
             logger.error("Failed to switch windows: {}", e.getMessage());
             throw e;
         }
     }
 
     /**
-     * Switches between frames based on the provided action list.
+     * Switches to the window at the index of {@link #getWindowHandles()}, a switch to the
+     * window the driver is already in (at its top document) is skipped.
+     *
+     * @param index Index of the window, in opening order.
+     * @return The handle of the window.
+     */
+    public String switchToWindow(int index) {
+        List<String> handles = getWindowHandles();
+        if (index < 0 || index >= handles.size()) {
+            // A window may have opened since the last refresh
+            windowHandles = null;
+            handles = getWindowHandles();
+            if (index < 0 || index >= handles.size()) {
+                throw new IndexOutOfBoundsException("Window index out of range: " + index);
+            }
+        }
+        String handle = handles.get(index);
+        switchToWindow(handle);
+        return handle;
+    }
+
+    /**
+     * Switches to the window, a switch to the window the driver is already in (at its top
+     * document) is skipped.
+     *
+     * @param handle The window handle.
+     */
+    public void switchToWindow(String handle) {
+        if (!contextUnknown && handle.equals(getCurrentWindow()) && framePath.isEmpty()) {
+            skippedSwitches++;
+            return;
+        }
+        try {
+            driver.switchTo().window(handle);
+        } catch (NoSuchWindowException e) {
+            windowHandles = null;
+            throw e;
+        }
+        currentWindow = handle;
+        contextUnknown = false;
+        framePath.clear();
+        frameElementCache.clear();
+        elementCache.clear();
+    }
+
+    /**
+     * @return The handle of the window the driver is in, queried once and then tracked.
+     */
+    public String getCurrentWindow() {
+        if (currentWindow == null) {
+            currentWindow = driver.getWindowHandle();
+        }
+        return currentWindow;
+    }
+
+    /**
+     * @return The window handles in opening order, refreshed only after an action that may
+     *         have opened or closed a window.
+     */
+    public List<String> getWindowHandles() {
+        if (windowHandles == null) {
+            windowHandles = List.copyOf(driver.getWindowHandles());
+        }
+        return windowHandles;
+    }
+
+    /**
+     * Marks the window handles as outdated and returns a list that fetches them on first
+     * access, callers ignoring the result of a click no longer pay for the round trip.
+     */
+    private List<String> windowHandlesAfterAction() {
+        windowHandles = null;
+        return new LazyWindowHandles(this);
+    }
+
+    void invalidateWindowHandles() {
+        windowHandles = null;
+    }
+
+    private static class LazyWindowHandles extends AbstractList<String> {
+        private DriverAction owner;
+        private List<String> handles;
+
+        LazyWindowHandles(DriverAction owner) {
+            this.owner = owner;
+        }
+
+        private List<String> handles() {
+            if (handles == null) {
+                handles = owner.getWindowHandles();
+                owner = null;
+            }
+            return handles;
+        }
+
+        @Override
+        public String get(int index) {
+            return handles().get(index);
+        }
+
+        @Override
+        public int size() {
+            return handles().size();
+        }
+    }
+
+    /**
+     * Switches between frames based on the provided action list. Frame locators are relative
+     * to the current frame, see {@link #switchToFrames(List)} for absolute paths.
      *
      * @param actionList The list of actions to perform. Each action can be a String (frame locator) or a Runnable.
      * @param log        Whether to log the actions.
      * @param customBy   The By locator to use for frame elements.
      */
     public void frameSwitch(List<Object> actionList, boolean log, By customBy) {
+        long startNanos = System.nanoTime();
         try {
             for (Object action : actionList) {
                 if (action instanceof String) {
-                    WebElement frameElement = wait((String)action, GLOBAL_WAIT_TIME);
-                    driver.switchTo().frame(frameElement);
+                    enterFrame((String) action);
                     if (log) {
                     	makeLog("Switched to frame {}", action);
                     }
                 } else if (action instanceof Runnable) {
                     Runnable func = (Runnable) action;
-                    func.run();
+                    try {
+                        func.run();
+                    } finally {
+                        // The action may have switched windows or frames itself
+                        resetContext();
+                    }
                 } else {
                     throw new IllegalArgumentException("ActionList items must be either String or Runnable");
                 }
@@ -422,12 +1624,133 @@ public class DriverAction {
             if (log) {
                 makeLog("Frame switch completed");
             }
+            trace.record(ActionTrace.ActionType.FRAME_SWITCH, null, startNanos);
         } catch (Exception e) {
+            traceFailure(ActionTrace.ActionType.FRAME_SWITCH, null, startNanos, e);
             logger.error("Failed to switch frames: {}", e.getMessage());
             throw e;
         }
     }
 
+    /**
+     * Switches to the frame at the path from the top document of the current window. Only
+     * the part of the path that differs from the current one is switched: a path equal to
+     * the current one costs no round trip, a sibling frame climbs to the common parent only.
+     *
+     * @param path Frame locators from the top document down, empty for the top document.
+     */
+    public void switchToFrames(List<String> path) {
+        long startNanos = System.nanoTime();
+        try {
+            if (contextUnknown) {
+                // The driver may be in any frame, only the top document is a known starting point
+                driver.switchTo().defaultContent();
+                contextUnknown = false;
+                framePath.clear();
+                elementCache.clear();
+                for (String locator : path) {
+                    enterFrame(locator);
+                }
+                trace.record(ActionTrace.ActionType.FRAME_SWITCH, null, startNanos);
+                makeLog("Switched to frame path {}", framePath);
+                return;
+            }
+            int common = 0;
+            while (common < framePath.size() && common < path.size()
+                    && framePath.get(common).equals(path.get(common))) {
+                common++;
+            }
+            if (common == framePath.size() && common == path.size()) {
+                skippedSwitches++;
+                return;
+            }
+            int levelsUp = framePath.size() - common;
+            if (common == 0 && levelsUp > 0) {
+                driver.switchTo().defaultContent();
+                framePath.clear();
+            } else {
+                for (int i = 0; i < levelsUp; i++) {
+                    driver.switchTo().parentFrame();
+                    framePath.remove(framePath.size() - 1);
+                }
+            }
+            elementCache.clear();
+            for (int i = common; i < path.size(); i++) {
+                enterFrame(path.get(i));
+            }
+            trace.record(ActionTrace.ActionType.FRAME_SWITCH, null, startNanos);
+            makeLog("Switched to frame path {}", framePath);
+        } catch (Exception e) {
+            traceFailure(ActionTrace.ActionType.FRAME_SWITCH, null, startNanos, e);
+            logger.error("Failed to switch to frame path {}: {}", path, e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Returns to the top document of the current window, skipped when already there.
+     */
+    public void switchToDefaultContent() {
+        switchToFrames(Collections.<String>emptyList());
+    }
+
+    /**
+     * @return Frame locators from the top document down to the current frame.
+     */
+    public List<String> getFramePath() {
+        return Collections.unmodifiableList(new ArrayList<>(framePath));
+    }
+
+    /**
+     * Forgets the tracked window and frame context, call it after switching the driver
+     * outside of DriverAction. The next window or frame switch is then always performed.
+     */
+    public void resetContext() {
+        contextUnknown = true;
+        currentWindow = null;
+        windowHandles = null;
+        framePath.clear();
+        frameElementCache.clear();
+        elementCache.clear();
+    }
+
+    /**
+     * @return Number of window and frame switches skipped because they were no-ops.
+     */
+    public long getSkippedSwitchCount() {
+        return skippedSwitches;
+    }
+
+    /**
+     * Enters a child frame of the current context, reusing the frame element resolved
+     * earlier for the same path unless it went stale.
+     */
+    private void enterFrame(String locator) {
+        // Paths are relative to an unknown frame until the next absolute switch
+        String key = contextUnknown ? null : String.join("\u0000", framePath) + "\u0000" + locator;
+        WebElement frameElement = key == null ? null : frameElementCache.get(key);
+        if (frameElement == null) {
+            frameElement = wait(locator, waitTime());
+        }
+        try {
+            driver.switchTo().frame(frameElement);
+        } catch (StaleElementReferenceException | NoSuchFrameException e) {
+            // The frame was replaced, e.g. a widget reloaded its iframe
+            elementCache.remove(locator);
+            if (key != null) {
+                frameElementCache.remove(key);
+            }
+            frameElement = wait(locator, waitTime());
+            driver.switchTo().frame(frameElement);
+        }
+        if (key != null) {
+            frameElementCache.put(key, frameElement);
+        }
+        framePath.add(locator);
+        // Elements of the parent document are unusable inside the frame
+        elementCache.clear();
+    }
+
     /**
      * Helper method to reconstruct a By locator from a base locator and a value.
      *
@@ -436,6 +1759,20 @@ public class DriverAction {
      * @return A new By locator with the updated value.
      */
     private By ByLocator(String byType, String value) {
+        String key = byType + '\u0000' + value;
+        By cached = BY_CACHE.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        if (BY_CACHE.size() >= BY_CACHE_LIMIT) {
+            BY_CACHE.clear();
+        }
+        By by = compileBy(byType, value);
+        BY_CACHE.put(key, by);
+        return by;
+    }
+
+    private static By compileBy(String byType, String value) {
         switch (byType) {
             case "id":
                 return By.id(value);
@@ -460,9 +1797,12 @@ public class DriverAction {
 
     /**
      * Validates the Selenium WebDriver's signature by navigating to bot.sannysoft.com.
+     * The result rows are read back with a single script call. Prefer
+     * {@link FingerprintValidator}, which runs offline against a bundled fixture page.
      *
      * @param driver The Selenium WebDriver instance.
      */
+    @SuppressWarnings("unchecked")
     public static void driverSignatureValidate(WebDriver driver) {
 
         Logger logger = LoggerFactory.getLogger(DriverAction.class);
@@ -471,14 +1811,12 @@ public class DriverAction {
             driver.get(baseUrl);
             WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(10));
             wait.until(ExpectedConditions.presenceOfElementLocated(By.xpath("//*[@id=\"fp2\"]/tr[20]/td[2]")));
-            List<WebElement> tds = driver.findElements(By.xpath("//*[@id=\"fp2\"]/tr/td[2]"));
+            List<List<String>> rows = (List<List<String>>) ((JavascriptExecutor) driver).executeScript(JS_SIGNATURE_ROWS);
             boolean allPass = true;
-            for (int i = 0; i < tds.size(); i++) {
-                WebElement td = tds.get(i);
-                if (!"ok".equalsIgnoreCase(td.getText())) {
+            for (List<String> row : rows) {
+                if (!"ok".equalsIgnoreCase(row.get(1))) {
                     allPass = false;
-                    WebElement tr = driver.findElement(By.xpath("//*[@id=\"fp2\"]/tr[" + (i + 1) + "]/td[1]"));
-                    logger.warn("Selenium driver signature test failed in: {}, type: {}", tr.getText(), td.getText());
+                    logger.warn("Selenium driver signature test failed in: {}, type: {}", row.get(0), row.get(1));
                 }
             }
             if (allPass) {
@@ -490,6 +1828,116 @@ public class DriverAction {
         }
     }
     
+    /**
+     * Seeds the trajectory generator used by the slide methods, making drags reproducible.
+     */
+    public void setTrajectorySeed(long seed) {
+        this.trajectoryGenerator = new SlideTrajectory.Generator(seed);
+    }
+
+    public boolean isEventDrivenWait() {
+        return eventDrivenWait;
+    }
+    /**
+     * Switches element waits to an in-page MutationObserver, which returns as soon as the
+     * element appears instead of on the next polling tick. Polling is kept as a fallback.
+     */
+    public void setEventDrivenWait(boolean eventDrivenWait) {
+        this.eventDrivenWait = eventDrivenWait;
+    }
+    public long getPollingMillis() {
+        return pollingMillis;
+    }
+    public void setPollingMillis(long pollingMillis) {
+        this.pollingMillis = pollingMillis;
+        waitCache.clear();
+    }
+    /**
+     * @return The action trace of this instance's driver, dump it on demand with {@link ActionTrace#dump(int)}.
+     */
+    public ActionTrace getTrace() {
+        return trace;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+    /**
+     * @param retryPolicy Policy for transient element failures, pass new RetryPolicy(Map.of("maxAttempts", "1"))
+     *                    to fail at the first error.
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    public boolean isTraceDumpOnError() {
+        return traceDumpOnError;
+    }
+    /**
+     * @param traceDumpOnError Whether a failing action logs the actions that preceded it.
+     */
+    public void setTraceDumpOnError(boolean traceDumpOnError) {
+        this.traceDumpOnError = traceDumpOnError;
+    }
+
+    /**
+     * @return Statistics in milliseconds of the time to ready of {@link #navigate(String, Readiness)}.
+     */
+    public LongSummaryStatistics getNavigationStats() {
+        LongSummaryStatistics copy = new LongSummaryStatistics();
+        copy.combine(navigationStats);
+        return copy;
+    }
+
+    /**
+     * @return Statistics in milliseconds of the element waits that actually hit the driver.
+     */
+    public LongSummaryStatistics getWaitStats() {
+        LongSummaryStatistics copy = new LongSummaryStatistics();
+        copy.combine(waitStats);
+        return copy;
+    }
+
+    public boolean isElementCacheEnabled() {
+        return elementCacheEnabled;
+    }
+
+    /**
+     * Reuses resolved elements across actions, off by default. Cached elements are dropped on
+     * navigation, on window and frame switches, when they go stale, and when the document was
+     * replaced after a click, input or slide (checked with one script call on the next cache
+     * hit). A re-render that keeps the node attached is not detected: the cached element is
+     * returned even if it no longer matches the locator, so only enable the cache for locators
+     * that do not depend on page state, e.g. not {@code //li[contains(@class,'selected')]}.
+     */
+    public void setElementCacheEnabled(boolean elementCacheEnabled) {
+        this.elementCacheEnabled = elementCacheEnabled;
+        if (!elementCacheEnabled) {
+            elementCache.clear();
+        }
+    }
+
+    private int waitTime() {
+        return waitTimeOverride != null ? waitTimeOverride : GLOBAL_WAIT_TIME;
+    }
+    private boolean debugLogSwitch() {
+        return debugLogSwitchOverride != null ? debugLogSwitchOverride : GLOBAL_DEBUG_LOG_SWTICH;
+    }
+    private boolean logLevelDebug() {
+        return logLevelDebugOverride != null ? logLevelDebugOverride : GLOBAL_LOG_LEVEL_DEBUG;
+    }
+
+    /**Setters for per-instance overrides, pass null to follow the GLOBAL parameter again */
+    public void setWaitTime(Integer waitTime) {
+    	this.waitTimeOverride = waitTime;
+    }
+    public void setDebugLogSwitch(Boolean debugLogSwitch) {
+    	this.debugLogSwitchOverride = debugLogSwitch;
+    }
+    public void setLogLevelDebug(Boolean logLevelDebug) {
+    	this.logLevelDebugOverride = logLevelDebug;
+    }
+
     /**Getters and Setters for GLOBAL parameters */
     public int getGLOBAL_WAIT_TIME() {
     	return GLOBAL_WAIT_TIME;
@@ -0,0 +1,151 @@
+package selenium;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.openqa.selenium.WebDriverException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import selenium.Connection.DriverInit;
+
+/**
+ * Boots {@link DriverInit} sessions asynchronously. Launches run on a fixed set of
+ * worker threads, so at most {@code maxConcurrentLaunches} browsers start at the same time
+ * and the remaining requests wait in the queue.
+ */
+public class DriverLauncher implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(DriverLauncher.class);
+
+    private final ExecutorService executor;
+    private final int maxConcurrentLaunches;
+    /** Fixed-size summary, a list of every latency would grow for the lifetime of the launcher. */
+    private final LongSummaryStatistics launchLatencies = new LongSummaryStatistics();
+    private final AtomicLong launchFailures = new AtomicLong();
+
+    /**
+     * @param maxConcurrentLaunches Maximum number of browsers launching at the same time.
+     */
+    public DriverLauncher(int maxConcurrentLaunches) {
+        if (maxConcurrentLaunches < 1) {
+            throw new IllegalArgumentException("maxConcurrentLaunches must be at least 1");
+        }
+        this.maxConcurrentLaunches = maxConcurrentLaunches;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(maxConcurrentLaunches, maxConcurrentLaunches,
+                0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+                    Thread thread = new Thread(r, "driver-launcher-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Launches a single browser asynchronously.
+     *
+     * @param seleniumDriverType "Chrome" or "Firefox".
+     * @param driverOptionParam  Extra driver arguments, may be null.
+     * @param headless           Whether to start the browser headless.
+     * @param settings           Driver settings, see {@link DriverInit}.
+     * @return A future completed with the started session.
+     */
+    public CompletableFuture<DriverInit> launch(String seleniumDriverType, List<String> driverOptionParam,
+            boolean headless, Map<String, String> settings) {
+        return launch(() -> new DriverInit(seleniumDriverType, driverOptionParam, headless, settings));
+    }
+
+    /**
+     * Launches a single browser asynchronously.
+     *
+     * @param factory Supplier creating the DriverInit, called on a launcher thread.
+     * @return A future completed with the started session, or exceptionally if the launch failed.
+     */
+    public CompletableFuture<DriverInit> launch(Supplier<DriverInit> factory) {
+        long queuedNanos = System.nanoTime();
+        return CompletableFuture.supplyAsync(() -> {
+            long startNanos = System.nanoTime();
+            try {
+                DriverInit driverInit = factory.get();
+                if (driverInit == null || driverInit.getDriver() == null) {
+                    throw new WebDriverException("Driver factory returned no driver");
+                }
+                long latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+                synchronized (launchLatencies) {
+                    launchLatencies.accept(latencyMillis);
+                }
+                logger.info("Browser launched in {} ms (queued {} ms)", latencyMillis,
+                        TimeUnit.NANOSECONDS.toMillis(startNanos - queuedNanos));
+                return driverInit;
+            } catch (Exception e) {
+                launchFailures.incrementAndGet();
+                logger.error("Browser launch failed: {}", e.getMessage());
+                throw e;
+            }
+        }, executor);
+    }
+
+    /**
+     * Launches {@code count} browsers in parallel.
+     *
+     * @param count   Number of browsers to launch.
+     * @param factory Supplier creating each DriverInit.
+     * @return A future completed with every successfully launched session once all launches finished,
+     *         failed launches are logged and counted in {@link #getLaunchFailures()}.
+     */
+    public CompletableFuture<List<DriverInit>> launchAll(int count, Supplier<DriverInit> factory) {
+        long startNanos = System.nanoTime();
+        List<CompletableFuture<DriverInit>> futures = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            futures.add(launch(factory));
+        }
+        return CompletableFuture.allOf(futures.stream()
+                .map(future -> future.handle((driverInit, error) -> driverInit))
+                .toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> {
+                    List<DriverInit> launched = new ArrayList<>();
+                    for (CompletableFuture<DriverInit> future : futures) {
+                        if (!future.isCompletedExceptionally()) {
+                            launched.add(future.join());
+                        }
+                    }
+                    logger.info("Launched {}/{} browsers in {} ms with {} concurrent launches",
+                            launched.size(), count,
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos),
+                            maxConcurrentLaunches);
+                    return launched;
+                });
+    }
+
+    /**
+     * @return Count, min, max and average latency in milliseconds of the successful launches.
+     */
+    public LongSummaryStatistics getLaunchLatencyStats() {
+        LongSummaryStatistics copy = new LongSummaryStatistics();
+        synchronized (launchLatencies) {
+            copy.combine(launchLatencies);
+        }
+        return copy;
+    }
+
+    public long getLaunchFailures() {
+        return launchFailures.get();
+    }
+
+    /**
+     * Stops accepting launches, launches already queued still run.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,496 @@
+package selenium;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import selenium.Connection.DriverInit;
+
+/**
+ * A bounded pool of {@link DriverInit} sessions with borrow/return semantics.
+ * Sessions are pre-warmed up to {@code minIdle}, health checked before being handed out,
+ * reset between borrowers and evicted after staying idle for too long.
+ */
+public class DriverPool implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(DriverPool.class);
+
+    // Default Pool Parameters
+    private static class PoolDefaultParam {
+        int MIN_IDLE = 1;
+        int MAX_SIZE = 4;
+        long MAX_WAIT_SECONDS = 60;
+        long IDLE_TIMEOUT_SECONDS = 300;
+        long EVICTION_INTERVAL_SECONDS = 30;
+        boolean RESET_ON_RETURN = true;
+
+        PoolDefaultParam() {
+        }
+
+        /**
+         * Constructor that initializes parameters based on the provided map.
+         *
+         * @param params Map containing pool parameters.
+         */
+        PoolDefaultParam(Map<String, String> params) {
+            if (params.containsKey("minIdle"))
+                this.MIN_IDLE = Integer.parseInt(params.get("minIdle"));
+            if (params.containsKey("maxSize"))
+                this.MAX_SIZE = Integer.parseInt(params.get("maxSize"));
+            if (params.containsKey("maxWaitSeconds"))
+                this.MAX_WAIT_SECONDS = Long.parseLong(params.get("maxWaitSeconds"));
+            if (params.containsKey("idleTimeoutSeconds"))
+                this.IDLE_TIMEOUT_SECONDS = Long.parseLong(params.get("idleTimeoutSeconds"));
+            if (params.containsKey("evictionIntervalSeconds"))
+                this.EVICTION_INTERVAL_SECONDS = Long.parseLong(params.get("evictionIntervalSeconds"));
+            if (params.containsKey("resetOnReturn"))
+                this.RESET_ON_RETURN = Boolean.parseBoolean(params.get("resetOnReturn"));
+            if (this.MAX_SIZE < 1 || this.MIN_IDLE < 0 || this.MIN_IDLE > this.MAX_SIZE) {
+                throw new IllegalArgumentException(
+                    "Pool sizes must satisfy 0 <= minIdle <= maxSize and maxSize >= 1");
+            }
+        }
+    }
+
+    private static class PooledDriver {
+        private final DriverInit driverInit;
+        private long lastReturnedNanos = System.nanoTime();
+
+        PooledDriver(DriverInit driverInit) {
+            this.driverInit = driverInit;
+        }
+    }
+
+    private final PoolDefaultParam params;
+    private final Supplier<DriverInit> factory;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    /** Most recently returned sessions sit at the head, they are the warmest ones. */
+    private final Deque<PooledDriver> idle = new ArrayDeque<>();
+    private final Map<DriverInit, PooledDriver> borrowed = new IdentityHashMap<>();
+    private final ScheduledExecutorService maintainer;
+    /** Live sessions plus sessions currently being created. */
+    private int totalCount = 0;
+    private boolean closed = false;
+
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong destroyedCount = new AtomicLong();
+    private final AtomicLong recycledCount = new AtomicLong();
+    private final AtomicLong creationFailures = new AtomicLong();
+    private final AtomicLong healthCheckFailures = new AtomicLong();
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong borrowTimeouts = new AtomicLong();
+    private final AtomicLong totalBorrowWaitNanos = new AtomicLong();
+    private final AtomicLong maxBorrowWaitNanos = new AtomicLong();
+
+    /**
+     * Creates a pool with default parameters.
+     *
+     * @param seleniumDriverType "Chrome" or "Firefox".
+     * @param driverOptionParam  Extra driver arguments, may be null.
+     * @param headless           Whether to start the browsers headless.
+     */
+    public DriverPool(String seleniumDriverType, List<String> driverOptionParam, boolean headless) {
+        this(() -> new DriverInit(seleniumDriverType, driverOptionParam, headless), Map.of());
+    }
+
+    /**
+     * Creates a pool, pass a map of parameters to override the defaults:
+     * minIdle, maxSize, maxWaitSeconds, idleTimeoutSeconds, evictionIntervalSeconds, resetOnReturn.
+     *
+     * @param factory    Supplier creating a new DriverInit for the pool.
+     * @param parameters Map containing pool parameters.
+     */
+    public DriverPool(Supplier<DriverInit> factory, Map<String, String> parameters) {
+        this.factory = factory;
+        this.params = new PoolDefaultParam(parameters);
+        this.maintainer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "driver-pool-maintainer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ensureMinIdle();
+        this.maintainer.scheduleWithFixedDelay(this::evictAndRefill,
+                params.EVICTION_INTERVAL_SECONDS, params.EVICTION_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        logger.info("Driver pool started, minIdle: {}, maxSize: {}", params.MIN_IDLE, params.MAX_SIZE);
+    }
+
+    /**
+     * Borrows a healthy session from the pool, creating one if the pool is below maxSize.
+     * Blocks up to maxWaitSeconds when every session is in use.
+     *
+     * @return A DriverInit that must be handed back with {@link #returnDriver(DriverInit)}
+     *         or {@link #invalidate(DriverInit)}.
+     */
+    public DriverInit borrow() {
+        long startNanos = System.nanoTime();
+        long remainingNanos = TimeUnit.SECONDS.toNanos(params.MAX_WAIT_SECONDS);
+        while (true) {
+            PooledDriver candidate;
+            boolean create = false;
+            lock.lock();
+            try {
+                while (!closed && idle.isEmpty() && totalCount >= params.MAX_SIZE) {
+                    if (remainingNanos <= 0) {
+                        borrowTimeouts.incrementAndGet();
+                        throw new TimeoutException("No driver available in pool after "
+                                + params.MAX_WAIT_SECONDS + " seconds");
+                    }
+                    remainingNanos = available.awaitNanos(remainingNanos);
+                }
+                if (closed) {
+                    throw new IllegalStateException("Driver pool is closed");
+                }
+                candidate = idle.pollFirst();
+                if (candidate == null) {
+                    totalCount++;
+                    create = true;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.error("Thread interrupted: {}", e.getMessage());
+                throw new RuntimeException(e);
+            } finally {
+                lock.unlock();
+            }
+
+            if (create) {
+                candidate = createPooled();
+                if (candidate == null) {
+                    throw new WebDriverException("Failed to create a new driver for the pool");
+                }
+            } else if (!isHealthy(candidate)) {
+                healthCheckFailures.incrementAndGet();
+                destroy(candidate);
+                continue;
+            }
+
+            long waitedNanos = System.nanoTime() - startNanos;
+            borrowCount.incrementAndGet();
+            totalBorrowWaitNanos.addAndGet(waitedNanos);
+            maxBorrowWaitNanos.accumulateAndGet(waitedNanos, Math::max);
+            lock.lock();
+            try {
+                borrowed.put(candidate.driverInit, candidate);
+            } finally {
+                lock.unlock();
+            }
+            return candidate.driverInit;
+        }
+    }
+
+    /**
+     * Hands a borrowed session back to the pool, the session is recycled if its
+     * {@link RecyclePolicy} asks for it, then reset before being made available again
+     * and destroyed if the reset fails.
+     *
+     * @param driverInit The session obtained from {@link #borrow()}.
+     */
+    public void returnDriver(DriverInit driverInit) {
+        PooledDriver pooled = takeBorrowed(driverInit);
+        try {
+            if (driverInit.recycleIfNeeded()) {
+                recycledCount.incrementAndGet();
+            }
+        } catch (Exception e) {
+            logger.error("Failed to recycle pooled driver: {}", e.getMessage());
+            destroy(pooled);
+            return;
+        }
+        if (params.RESET_ON_RETURN && !reset(pooled)) {
+            destroy(pooled);
+            return;
+        }
+        lock.lock();
+        try {
+            if (closed) {
+                totalCount--;
+            } else {
+                pooled.lastReturnedNanos = System.nanoTime();
+                idle.addFirst(pooled);
+                available.signal();
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        destroyedCount.incrementAndGet();
+        driverInit.quit();
+    }
+
+    /**
+     * Removes a borrowed session from the pool and quits it, use it when the
+     * session is known to be broken.
+     *
+     * @param driverInit The session obtained from {@link #borrow()}.
+     */
+    public void invalidate(DriverInit driverInit) {
+        destroy(takeBorrowed(driverInit));
+    }
+
+    private PooledDriver takeBorrowed(DriverInit driverInit) {
+        lock.lock();
+        try {
+            PooledDriver pooled = borrowed.remove(driverInit);
+            if (pooled == null) {
+                throw new IllegalArgumentException("Driver was not borrowed from this pool");
+            }
+            return pooled;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Creates a new session, the caller must have reserved a slot in totalCount.
+     *
+     * @return The pooled session, or null if the creation failed.
+     */
+    private PooledDriver createPooled() {
+        try {
+            DriverInit driverInit = factory.get();
+            if (driverInit == null || driverInit.getDriver() == null) {
+                throw new WebDriverException("Driver factory returned no driver");
+            }
+            createdCount.incrementAndGet();
+            return new PooledDriver(driverInit);
+        } catch (Exception e) {
+            creationFailures.incrementAndGet();
+            logger.error("Failed to create pooled driver: {}", e.getMessage());
+            lock.lock();
+            try {
+                totalCount--;
+                available.signal();
+            } finally {
+                lock.unlock();
+            }
+            return null;
+        }
+    }
+
+    private void destroy(PooledDriver pooled) {
+        lock.lock();
+        try {
+            totalCount--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+        destroyedCount.incrementAndGet();
+        pooled.driverInit.quit();
+    }
+
+    /**
+     * Checks that the browser session still responds.
+     */
+    private boolean isHealthy(PooledDriver pooled) {
+        try {
+            pooled.driverInit.getDriver().getWindowHandle();
+            return true;
+        } catch (Exception e) {
+            logger.warn("Pooled driver failed health check: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Closes every window but the first one, clears cookies and navigates to a blank page.
+     */
+    private boolean reset(PooledDriver pooled) {
+        try {
+            WebDriver driver = pooled.driverInit.getDriver();
+            List<String> handles = new ArrayList<>(driver.getWindowHandles());
+            for (int i = 1; i < handles.size(); i++) {
+                driver.switchTo().window(handles.get(i));
+                driver.close();
+            }
+            driver.switchTo().window(handles.get(0));
+            if (driver instanceof ChromeDriver) {
+                // deleteAllCookies only covers the current domain, CDP clears the whole browser
+                ((ChromeDriver) driver).executeCdpCommand("Network.clearBrowserCookies", Map.of());
+            } else {
+                driver.manage().deleteAllCookies();
+            }
+            driver.get("about:blank");
+            return true;
+        } catch (Exception e) {
+            logger.warn("Failed to reset pooled driver: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Quits sessions idle for longer than idleTimeoutSeconds while keeping minIdle alive,
+     * then tops the pool back up to minIdle.
+     */
+    private void evictAndRefill() {
+        List<PooledDriver> expired = new ArrayList<>();
+        long timeoutNanos = TimeUnit.SECONDS.toNanos(params.IDLE_TIMEOUT_SECONDS);
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            // Oldest sessions sit at the tail
+            Iterator<PooledDriver> iterator = idle.descendingIterator();
+            while (iterator.hasNext() && idle.size() > params.MIN_IDLE) {
+                PooledDriver pooled = iterator.next();
+                if (now - pooled.lastReturnedNanos > timeoutNanos) {
+                    iterator.remove();
+                    expired.add(pooled);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (PooledDriver pooled : expired) {
+            destroy(pooled);
+        }
+        if (!expired.isEmpty()) {
+            logger.info("Evicted {} idle drivers", expired.size());
+        }
+        ensureMinIdle();
+    }
+
+    private void ensureMinIdle() {
+        while (true) {
+            lock.lock();
+            try {
+                if (closed || idle.size() >= params.MIN_IDLE || totalCount >= params.MAX_SIZE) {
+                    return;
+                }
+                totalCount++;
+            } finally {
+                lock.unlock();
+            }
+            PooledDriver pooled = createPooled();
+            if (pooled == null) {
+                return;
+            }
+            lock.lock();
+            try {
+                idle.addLast(pooled);
+                available.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * @return A snapshot of the pool statistics.
+     */
+    public PoolStats getStats() {
+        lock.lock();
+        try {
+            return new PoolStats(borrowed.size(), idle.size(), totalCount,
+                    createdCount.get(), destroyedCount.get(), recycledCount.get(), creationFailures.get(),
+                    healthCheckFailures.get(), borrowCount.get(), borrowTimeouts.get(),
+                    totalBorrowWaitNanos.get(), maxBorrowWaitNanos.get());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Quits every idle session and stops the maintenance thread, borrowed
+     * sessions are quit when they are returned.
+     */
+    @Override
+    public void close() {
+        List<PooledDriver> toQuit;
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            toQuit = new ArrayList<>(idle);
+            idle.clear();
+            totalCount -= toQuit.size();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        maintainer.shutdownNow();
+        for (PooledDriver pooled : toQuit) {
+            destroyedCount.incrementAndGet();
+            pooled.driverInit.quit();
+        }
+        logger.info("Driver pool closed, {}", getStats());
+    }
+
+    /**
+     * Immutable snapshot of pool statistics, used to size the pool under load.
+     */
+    public static class PoolStats {
+        private final int active;
+        private final int idle;
+        private final int total;
+        private final long created;
+        private final long destroyed;
+        private final long recycled;
+        private final long creationFailures;
+        private final long healthCheckFailures;
+        private final long borrows;
+        private final long borrowTimeouts;
+        private final long totalBorrowWaitNanos;
+        private final long maxBorrowWaitNanos;
+
+        PoolStats(int active, int idle, int total, long created, long destroyed, long recycled, long creationFailures,
+                long healthCheckFailures, long borrows, long borrowTimeouts,
+                long totalBorrowWaitNanos, long maxBorrowWaitNanos) {
+            this.active = active;
+            this.idle = idle;
+            this.total = total;
+            this.created = created;
+            this.destroyed = destroyed;
+            this.recycled = recycled;
+            this.creationFailures = creationFailures;
+            this.healthCheckFailures = healthCheckFailures;
+            this.borrows = borrows;
+            this.borrowTimeouts = borrowTimeouts;
+            this.totalBorrowWaitNanos = totalBorrowWaitNanos;
+            this.maxBorrowWaitNanos = maxBorrowWaitNanos;
+        }
+
+        public int getActive() { return active; }
+        public int getIdle() { return idle; }
+        public int getTotal() { return total; }
+        public long getCreated() { return created; }
+        public long getDestroyed() { return destroyed; }
+        public long getRecycled() { return recycled; }
+        public long getCreationFailures() { return creationFailures; }
+        public long getHealthCheckFailures() { return healthCheckFailures; }
+        public long getBorrows() { return borrows; }
+        public long getBorrowTimeouts() { return borrowTimeouts; }
+        public double getAverageBorrowWaitMillis() {
+            return borrows == 0 ? 0 : totalBorrowWaitNanos / 1_000_000.0 / borrows;
+        }
+        public double getMaxBorrowWaitMillis() { return maxBorrowWaitNanos / 1_000_000.0; }
+
+        @Override
+        public String toString() {
+            return String.format("PoolStats{active=%d, idle=%d, total=%d, created=%d, destroyed=%d, "
+                    + "recycled=%d, creationFailures=%d, healthCheckFailures=%d, borrows=%d, borrowTimeouts=%d, "
+                    + "avgBorrowWaitMs=%.2f, maxBorrowWaitMs=%.2f}",
+                    active, idle, total, created, destroyed, recycled, creationFailures, healthCheckFailures,
+                    borrows, borrowTimeouts, getAverageBorrowWaitMillis(), getMaxBorrowWaitMillis());
+        }
+    }
+}
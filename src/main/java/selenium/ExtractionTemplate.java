@@ -0,0 +1,162 @@
+package selenium;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Declarative description of a listing page: a row locator plus, for every field,
+ * a locator relative to the row and the attribute to read (null for the visible text).
+ * The template is compiled once per locator strategy into a single in-page script,
+ * see {@link DriverAction#extractList(ExtractionTemplate)}.
+ *
+ * Relative locators are evaluated with the row as root: ".//span" for xpath, "span.price"
+ * for css. An empty locator or "." reads the row itself.
+ */
+public class ExtractionTemplate {
+    private final String rowLocator;
+    private final Map<String, String[]> fields = new LinkedHashMap<>();
+    private String nextPageLocator = null;
+    private final Map<String, String> compiledScripts = new ConcurrentHashMap<>();
+
+    /**
+     * @param rowLocator Locator string matching every row of the listing.
+     */
+    public ExtractionTemplate(String rowLocator) {
+        this.rowLocator = rowLocator;
+    }
+
+    /**
+     * Adds a field read from the visible text of the element.
+     *
+     * @param name            Field name, used as the key of the result map.
+     * @param relativeLocator Locator relative to the row.
+     * @return This template.
+     */
+    public ExtractionTemplate field(String name, String relativeLocator) {
+        return field(name, relativeLocator, null);
+    }
+
+    /**
+     * Adds a field read from an attribute of the element.
+     *
+     * @param name            Field name, used as the key of the result map.
+     * @param relativeLocator Locator relative to the row.
+     * @param attribute       Attribute to read, or null for the visible text.
+     * @return This template.
+     */
+    public synchronized ExtractionTemplate field(String name, String relativeLocator, String attribute) {
+        fields.put(name, new String[] {relativeLocator, attribute});
+        compiledScripts.clear();
+        return this;
+    }
+
+    /**
+     * Sets the locator of the "next page" control followed by
+     * {@link DriverAction#extractPages(ExtractionTemplate, int)}.
+     *
+     * @param nextPageLocator Locator string of the next page control (absolute).
+     * @return This template.
+     */
+    public synchronized ExtractionTemplate nextPage(String nextPageLocator) {
+        this.nextPageLocator = nextPageLocator;
+        compiledScripts.clear();
+        return this;
+    }
+
+    public String getRowLocator() {
+        return rowLocator;
+    }
+
+    public String getNextPageLocator() {
+        return nextPageLocator;
+    }
+
+    public synchronized Map<String, String[]> getFields() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(fields));
+    }
+
+    /**
+     * Returns the script extracting this template, compiled on first use for the strategy.
+     * The script returns {rows: [...], marker: firstRowElement, next: nextPageElement}.
+     *
+     * @param byType          The locator strategy, see DriverAction's inner_byString.
+     * @param locatorFuncs    In-page locator functions the script builds upon.
+     * @return The compiled script.
+     */
+    String compile(String byType, String locatorFuncs) {
+        return compileFunction(byType, locatorFuncs) + "return __sup_extract(false);";
+    }
+
+    /**
+     * Returns the template compiled into a function __sup_extract(onlyNew), onlyNew skips
+     * the rows returned by an earlier onlyNew call on the same document.
+     *
+     * @param byType          The locator strategy, see DriverAction's inner_byString.
+     * @param locatorFuncs    In-page locator functions the script builds upon.
+     * @return The compiled function definition.
+     */
+    String compileFunction(String byType, String locatorFuncs) {
+        return compiledScripts.computeIfAbsent(byType, by -> {
+            StringBuilder spec = new StringBuilder("[");
+            synchronized (this) {
+                boolean first = true;
+                for (Map.Entry<String, String[]> entry : fields.entrySet()) {
+                    if (!first) {
+                        spec.append(',');
+                    }
+                    first = false;
+                    spec.append('[').append(jsString(entry.getKey())).append(',')
+                        .append(jsString(entry.getValue()[0])).append(',')
+                        .append(jsString(entry.getValue()[1])).append(']');
+                }
+            }
+            spec.append(']');
+            return locatorFuncs +
+                "function __sup_extract(onlyNew) {\n" +
+                "var by = " + jsString(by) + ", fields = " + spec + ";\n" +
+                "var rows = __sup_findAll(by, " + jsString(rowLocator) + ", document), out = [];\n" +
+                "for (var i = 0; i < rows.length; i++) {\n" +
+                "  var row = rows[i], item = {};\n" +
+                "  if (onlyNew) { if (row.__supHarvested) continue; row.__supHarvested = true; }\n" +
+                "  for (var j = 0; j < fields.length; j++) {\n" +
+                "    var f = fields[j], el;\n" +
+                "    try { el = (!f[1] || f[1] === '.') ? row : __sup_find(by, f[1], row); } catch (err) { el = null; }\n" +
+                "    item[f[0]] = el ? __sup_read(el, f[2]) : null;\n" +
+                "  }\n" +
+                "  out.push(item);\n" +
+                "}\n" +
+                "var next = " + (nextPageLocator == null ? "null"
+                        : "__sup_find(by, " + jsString(nextPageLocator) + ", document)") + ";\n" +
+                "return {rows: out, marker: rows.length ? rows[0] : null, next: next};\n" +
+                "}\n";
+        });
+    }
+
+    /**
+     * Quotes a Java string as a JavaScript string literal, null becomes null.
+     */
+    static String jsString(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"': quoted.append("\\\""); break;
+                case '\\': quoted.append("\\\\"); break;
+                case '\n': quoted.append("\\n"); break;
+                case '\r': quoted.append("\\r"); break;
+                case '\t': quoted.append("\\t"); break;
+                default:
+                    if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
@@ -0,0 +1,123 @@
+package selenium;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Named resource-blocking profiles for {@link Connection.DriverInit}.
+ * Chrome enforces the URL patterns through DevTools, Firefox through preferences.
+ */
+public enum FetchProfile {
+    /** Keeps only the document, scripts and XHR; drops images, fonts, media, stylesheets and trackers. */
+    DOM_ONLY("dom-only", true, true, true, true),
+    /** Drops images and audio/video but keeps fonts and stylesheets. */
+    NO_MEDIA("no-media", true, false, true, false),
+    /** Loads everything, the browser default. */
+    FULL("full", false, false, false, false);
+
+    // Enum constructors cannot read the enum's own static fields, so the patterns live in a holder.
+    private static class Patterns {
+        private static final List<String> IMAGE_PATTERNS = extensions(
+            "png", "jpg", "jpeg", "gif", "webp", "avif", "svg", "ico", "bmp");
+        private static final List<String> FONT_PATTERNS = extensions("woff", "woff2", "ttf", "otf", "eot");
+        private static final List<String> MEDIA_PATTERNS = extensions(
+            "mp4", "webm", "mp3", "ogg", "wav", "m3u8", "m4a");
+        private static final List<String> STYLESHEET_PATTERNS = extensions("css");
+        private static final List<String> TRACKER_PATTERNS = hosts(
+            "google-analytics.com", "googletagmanager.com", "doubleclick.net",
+            "googlesyndication.com", "facebook.net", "hotjar.com", "scorecardresearch.com");
+
+        /**
+         * A path ending in the extension, with or without a query. An open wildcard after the
+         * extension would also match hosts and paths like cdn.css-tricks.com/app.js.
+         */
+        private static List<String> extensions(String... extensions) {
+            List<String> patterns = new ArrayList<>();
+            for (String extension : extensions) {
+                patterns.add("*." + extension);
+                patterns.add("*." + extension + "?*");
+            }
+            return List.copyOf(patterns);
+        }
+
+        /**
+         * Every URL of the host and its subdomains.
+         */
+        private static List<String> hosts(String... hosts) {
+            List<String> patterns = new ArrayList<>();
+            for (String host : hosts) {
+                patterns.add("*://" + host + "/*");
+                patterns.add("*://*." + host + "/*");
+            }
+            return List.copyOf(patterns);
+        }
+    }
+
+    private final String profileName;
+    private final List<String> blockedUrlPatterns;
+    private final Map<String, Object> firefoxPreferences;
+
+    FetchProfile(String profileName, boolean blockImages, boolean blockFonts, boolean blockMedia,
+            boolean blockStylesAndTrackers) {
+        this.profileName = profileName;
+        List<String> patterns = new ArrayList<>();
+        if (blockImages) patterns.addAll(Patterns.IMAGE_PATTERNS);
+        if (blockFonts) patterns.addAll(Patterns.FONT_PATTERNS);
+        if (blockMedia) patterns.addAll(Patterns.MEDIA_PATTERNS);
+        if (blockStylesAndTrackers) {
+            patterns.addAll(Patterns.STYLESHEET_PATTERNS);
+            patterns.addAll(Patterns.TRACKER_PATTERNS);
+        }
+        this.blockedUrlPatterns = List.copyOf(patterns);
+
+        // Firefox has no URL blocking through prefs, so these only cover the resource types
+        Map<String, Object> prefs = new HashMap<>();
+        if (blockImages) prefs.put("permissions.default.image", 2);
+        if (blockFonts) {
+            prefs.put("gfx.downloadable_fonts.enabled", false);
+            prefs.put("browser.display.use_document_fonts", 0);
+        }
+        if (blockMedia) {
+            prefs.put("media.autoplay.default", 5);
+            prefs.put("media.mediasource.enabled", false);
+        }
+        if (blockStylesAndTrackers) {
+            prefs.put("permissions.default.stylesheet", 2);
+            prefs.put("privacy.trackingprotection.enabled", true);
+        }
+        this.firefoxPreferences = Map.copyOf(prefs);
+    }
+
+    /**
+     * Looks a profile up by its name, e.g. "dom-only", "no-media" or "full".
+     *
+     * @param profileName The profile name, case-insensitive.
+     * @return The matching profile.
+     */
+    public static FetchProfile fromName(String profileName) {
+        for (FetchProfile profile : values()) {
+            if (profile.profileName.equalsIgnoreCase(profileName)) {
+                return profile;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported fetch profile: " + profileName
+                + ", the available profiles are [\"dom-only\", \"no-media\", \"full\"]");
+    }
+
+    public String getProfileName() {
+        return profileName;
+    }
+
+    /**
+     * @return URL patterns passed to Network.setBlockedURLs.
+     */
+    public List<String> getBlockedUrlPatterns() {
+        return blockedUrlPatterns;
+    }
+
+    public Map<String, Object> getFirefoxPreferences() {
+        return firefoxPreferences;
+    }
+}
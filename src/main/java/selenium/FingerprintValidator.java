@@ -0,0 +1,277 @@
+package selenium;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Validates the browser fingerprint against the bundled fingerprint-fixture.html instead of a
+ * public test site. The fixture runs every check on load, so the whole report is read back with
+ * one script call and no network access. Reports are cached per configuration key, see
+ * {@link Connection.DriverInit#getConfigurationKey()}: sessions started with the same browser
+ * build and options are validated once per JVM.
+ */
+public class FingerprintValidator {
+    private static final Logger logger = LoggerFactory.getLogger(FingerprintValidator.class);
+    /** Resolves with the report once the fixture has run its checks, null if it never does. */
+    private static final String JS_READ_REPORT =
+        "var done = arguments[arguments.length - 1], started = Date.now();\n" +
+        "(function poll() {\n" +
+        "  if (window.__supFingerprintReport) { done(window.__supFingerprintReport); return; }\n" +
+        "  if (Date.now() - started > 5000) { done(null); return; }\n" +
+        "  setTimeout(poll, 20);\n" +
+        "})();";
+    private static final Map<String, CompletableFuture<FingerprintReport>> CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * Holder for the fixture, extracted once per JVM to a temporary file so that the
+     * browser can load it from a file:// URL even when the resources are inside a jar.
+     */
+    private static class Fixture {
+        private static final String URL = extract();
+
+        private static String extract() {
+            try (InputStream in = FingerprintValidator.class.getResourceAsStream("/fingerprint-fixture.html")) {
+                byte[] content = in != null ? in.readAllBytes()
+                        // Fall back to the source tree when the resources are not on the classpath
+                        : Files.readAllBytes(Paths.get("src/main/resources/fingerprint-fixture.html"));
+                Path file = Files.createTempFile("fingerprint-fixture", ".html");
+                file.toFile().deleteOnExit();
+                Files.write(file, content);
+                return file.toUri().toString();
+            } catch (IOException e) {
+                logger.error("Failed to extract fingerprint-fixture.html: {}", e.getMessage());
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private FingerprintValidator() {
+    }
+
+    /**
+     * Loads the fixture in the session and reads the report back, without the cache.
+     *
+     * @param driver The Selenium WebDriver instance, it is left on the fixture page.
+     * @return The report.
+     */
+    @SuppressWarnings("unchecked")
+    public static FingerprintReport validate(WebDriver driver) {
+        long startNanos = System.nanoTime();
+        try {
+            driver.get(Fixture.URL);
+            Object result = ((JavascriptExecutor) driver).executeAsyncScript(JS_READ_REPORT);
+            if (!(result instanceof Map)) {
+                throw new IllegalStateException("Fingerprint fixture did not produce a report");
+            }
+            FingerprintReport report = new FingerprintReport((Map<String, Object>) result,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+            report.log();
+            return report;
+        } catch (Exception e) {
+            logger.error("Fingerprint validation failed: {}", e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Validates the session once per configuration key, concurrent callers with the same key
+     * share the same run.
+     *
+     * @param driverInit The session to validate if its configuration has no report yet.
+     * @return The cached or fresh report.
+     */
+    public static FingerprintReport validate(Connection.DriverInit driverInit) {
+        String key = driverInit.getConfigurationKey();
+        CompletableFuture<FingerprintReport> pending = new CompletableFuture<>();
+        CompletableFuture<FingerprintReport> cached = CACHE.putIfAbsent(key, pending);
+        if (cached != null) {
+            return cached.join();
+        }
+        try {
+            FingerprintReport report = validate(driverInit.getDriver());
+            pending.complete(report);
+            return report;
+        } catch (RuntimeException e) {
+            // Do not cache failures, the next session with this configuration tries again
+            CACHE.remove(key, pending);
+            pending.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Borrows the given number of sessions from the pool and validates them in parallel,
+     * typically right after the pool is created. Sessions that share a configuration key
+     * share one run, so a homogeneous pool costs a single page load.
+     *
+     * @param pool     The pool to validate.
+     * @param sessions Number of sessions to borrow, e.g. the pool's minIdle.
+     * @return Configuration key to report.
+     */
+    public static Map<String, FingerprintReport> validatePool(DriverPool pool, int sessions) {
+        List<Connection.DriverInit> borrowed = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, sessions));
+        try {
+            for (int i = 0; i < sessions; i++) {
+                borrowed.add(pool.borrow());
+            }
+            Map<String, CompletableFuture<FingerprintReport>> runs = new LinkedHashMap<>();
+            for (Connection.DriverInit driverInit : borrowed) {
+                runs.computeIfAbsent(driverInit.getConfigurationKey(),
+                        key -> CompletableFuture.supplyAsync(() -> validate(driverInit), executor));
+            }
+            Map<String, FingerprintReport> reports = new LinkedHashMap<>();
+            for (Map.Entry<String, CompletableFuture<FingerprintReport>> run : runs.entrySet()) {
+                reports.put(run.getKey(), run.getValue().join());
+            }
+            return reports;
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            logger.error("Pool fingerprint validation failed: {}", cause.getMessage());
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : e;
+        } finally {
+            executor.shutdown();
+            for (Connection.DriverInit driverInit : borrowed) {
+                pool.returnDriver(driverInit);
+            }
+        }
+    }
+
+    /**
+     * @return The cached report of a configuration key, or null if it has not been validated.
+     */
+    public static FingerprintReport getCached(String configurationKey) {
+        CompletableFuture<FingerprintReport> cached = CACHE.get(configurationKey);
+        return cached != null && cached.isDone() && !cached.isCompletedExceptionally() ? cached.join() : null;
+    }
+
+    /**
+     * Drops every cached report, e.g. after the browser was updated.
+     */
+    public static void clearCache() {
+        CACHE.clear();
+    }
+
+    /**
+     * Result of one fixture run.
+     */
+    public static class FingerprintReport {
+        private final boolean passed;
+        private final String userAgent;
+        private final Map<String, Check> checks;
+        private final long elapsedMillis;
+
+        @SuppressWarnings("unchecked")
+        FingerprintReport(Map<String, Object> raw, long elapsedMillis) {
+            Map<String, Check> checks = new LinkedHashMap<>();
+            for (Map<String, Object> check : (List<Map<String, Object>>) raw.get("checks")) {
+                String name = String.valueOf(check.get("name"));
+                checks.put(name, new Check(name, Boolean.TRUE.equals(check.get("passed")),
+                        check.get("value") == null ? null : String.valueOf(check.get("value"))));
+            }
+            this.passed = Boolean.TRUE.equals(raw.get("passed"));
+            this.userAgent = (String) raw.get("userAgent");
+            this.checks = Collections.unmodifiableMap(checks);
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        private void log() {
+            if (passed) {
+                logger.info("Fingerprint checks passed in {} ms", elapsedMillis);
+                return;
+            }
+            for (Check check : getFailures()) {
+                logger.warn("Fingerprint check failed: {}, value: {}", check.getName(), check.getValue());
+            }
+        }
+
+        /**
+         * @return The failed checks, in fixture order.
+         */
+        public List<Check> getFailures() {
+            List<Check> failures = new ArrayList<>();
+            for (Check check : checks.values()) {
+                if (!check.isPassed()) {
+                    failures.add(check);
+                }
+            }
+            return failures;
+        }
+
+        public boolean isPassed() {
+            return passed;
+        }
+
+        public String getUserAgent() {
+            return userAgent;
+        }
+
+        /**
+         * @return Check name to check, in fixture order.
+         */
+        public Map<String, Check> getChecks() {
+            return checks;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("FingerprintReport{passed=%s, failures=%s, elapsed=%d ms}",
+                    passed, getFailures(), elapsedMillis);
+        }
+    }
+
+    /**
+     * One named check of the fixture and the value it observed.
+     */
+    public static class Check {
+        private final String name;
+        private final boolean passed;
+        private final String value;
+
+        Check(String name, boolean passed, String value) {
+            this.name = name;
+            this.passed = passed;
+            this.value = value;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isPassed() {
+            return passed;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return name + "=" + value;
+        }
+    }
+}
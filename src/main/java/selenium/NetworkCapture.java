@@ -0,0 +1,309 @@
+package selenium;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.devtools.v115.network.Network;
+import org.openqa.selenium.devtools.v115.network.model.RequestId;
+import org.openqa.selenium.json.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records response bodies through DevTools so that JSON APIs behind a page can be harvested
+ * without touching the DOM. Responses are filtered by URL pattern and MIME type and kept in
+ * a bounded in-memory buffer; once the buffer is full, bodies are spilled to disk when a
+ * spill directory is configured, otherwise the oldest responses are dropped.
+ * The parsed bodies are plain Map/List trees ready for ParseToolKit.dictSearch.
+ */
+public class NetworkCapture implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(NetworkCapture.class);
+    private static final Json JSON = new Json();
+
+    // Default Capture Parameters
+    private Pattern URL_PATTERN = Pattern.compile(".*");
+    private List<String> MIME_TYPES = List.of("application/json", "text/json", "application/x-ndjson");
+    private int MAX_ENTRIES = 1000;
+    private long MAX_BUFFER_BYTES = 64L * 1024 * 1024;
+    private Path SPILL_DIR = null;
+
+    /**
+     * A captured response, its body is either held in memory or spilled to a file.
+     */
+    public static class CapturedResponse {
+        private final String url;
+        private final int status;
+        private final String mimeType;
+        private volatile String body;
+        private volatile Path spilledFile;
+
+        CapturedResponse(String url, int status, String mimeType, String body) {
+            this.url = url;
+            this.status = status;
+            this.mimeType = mimeType;
+            this.body = body;
+        }
+
+        public String getUrl() { return url; }
+        public int getStatus() { return status; }
+        public String getMimeType() { return mimeType; }
+        public boolean isSpilled() { return spilledFile != null; }
+
+        public String getBody() throws IOException {
+            String inMemory = body;
+            return inMemory != null ? inMemory : Files.readString(spilledFile);
+        }
+
+        /**
+         * Parses the body as JSON.
+         *
+         * @return A Map, List or scalar value.
+         */
+        public Object parse() throws IOException {
+            String inMemory = body;
+            if (inMemory != null) {
+                return JSON.toType(inMemory, Json.OBJECT_TYPE);
+            }
+            try (Reader reader = Files.newBufferedReader(spilledFile, StandardCharsets.UTF_8)) {
+                return JSON.toType(reader, Json.OBJECT_TYPE);
+            }
+        }
+
+        private long size() {
+            String inMemory = body;
+            return inMemory == null ? 0 : inMemory.length() * 2L;
+        }
+    }
+
+    private static class Pending {
+        private final String url;
+        private final int status;
+        private final String mimeType;
+
+        Pending(String url, int status, String mimeType) {
+            this.url = url;
+            this.status = status;
+            this.mimeType = mimeType;
+        }
+    }
+
+    private final DevTools devTools;
+    private final List<DevToolsEvents.Subscription> subscriptions = new ArrayList<>();
+    private final List<Path> spillFiles = new ArrayList<>();
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private final Deque<CapturedResponse> buffer = new ArrayDeque<>();
+    /** Bodies are fetched off the DevTools callback thread, sending from a listener would deadlock. */
+    private final ExecutorService fetcher;
+    private long bufferedBytes = 0;
+    private int inMemoryCount = 0;
+    private volatile boolean active = true;
+    private final AtomicLong captured = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+
+    /**
+     * Starts capturing on a driver with DevTools support.
+     * Supported parameters: urlPattern (regex), mimeTypes (comma separated prefixes),
+     * maxEntries, maxBufferBytes, spillDir.
+     *
+     * @param driver     The WebDriver, it must implement HasDevTools (e.g. ChromeDriver).
+     * @param parameters Map containing capture parameters, omit keys to keep the defaults.
+     */
+    public NetworkCapture(WebDriver driver, Map<String, String> parameters) {
+        if (!(driver instanceof HasDevTools)) {
+            throw new IllegalArgumentException("Network capture requires a driver with DevTools support");
+        }
+        if (parameters.containsKey("urlPattern"))
+            this.URL_PATTERN = Pattern.compile(parameters.get("urlPattern"));
+        if (parameters.containsKey("mimeTypes"))
+            this.MIME_TYPES = Arrays.asList(parameters.get("mimeTypes").split("\\s*,\\s*"));
+        if (parameters.containsKey("maxEntries"))
+            this.MAX_ENTRIES = Integer.parseInt(parameters.get("maxEntries"));
+        if (parameters.containsKey("maxBufferBytes"))
+            this.MAX_BUFFER_BYTES = Long.parseLong(parameters.get("maxBufferBytes"));
+        if (parameters.containsKey("spillDir"))
+            this.SPILL_DIR = Paths.get(parameters.get("spillDir"));
+
+        this.fetcher = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "network-capture-fetcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.devTools = ((HasDevTools) driver).getDevTools();
+        devTools.createSessionIfThereIsNotOne();
+        devTools.send(Network.enable(Optional.empty(), Optional.empty(), Optional.empty()));
+        DevToolsEvents events = DevToolsEvents.of(devTools);
+        subscriptions.add(events.subscribe(devTools, Network.responseReceived(), received -> {
+            if (!active) {
+                return;
+            }
+            String url = received.getResponse().getUrl();
+            String mimeType = received.getResponse().getMimeType();
+            if (matchesMime(mimeType) && URL_PATTERN.matcher(url).find()) {
+                pending.put(received.getRequestId().toString(),
+                        new Pending(url, received.getResponse().getStatus(), mimeType));
+            }
+        }));
+        subscriptions.add(events.subscribe(devTools, Network.loadingFinished(), finished -> {
+            Pending match = pending.remove(finished.getRequestId().toString());
+            if (match != null && active) {
+                fetcher.submit(() -> fetchBody(finished.getRequestId(), match));
+            }
+        }));
+        subscriptions.add(events.subscribe(devTools, Network.loadingFailed(),
+                failed -> pending.remove(failed.getRequestId().toString())));
+        logger.info("Network capture started, urlPattern: {}, mimeTypes: {}", URL_PATTERN, MIME_TYPES);
+    }
+
+    private boolean matchesMime(String mimeType) {
+        if (mimeType == null) {
+            return false;
+        }
+        for (String prefix : MIME_TYPES) {
+            if (mimeType.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void fetchBody(RequestId requestId, Pending match) {
+        try {
+            Network.GetResponseBodyResponse response = devTools.send(Network.getResponseBody(requestId));
+            String body = response.getBody();
+            if (Boolean.TRUE.equals(response.getBase64Encoded())) {
+                body = new String(Base64.getDecoder().decode(body), StandardCharsets.UTF_8);
+            }
+            store(new CapturedResponse(match.url, match.status, match.mimeType, body));
+        } catch (Exception e) {
+            // Bodies of redirects and evicted resources are not retrievable
+            logger.warn("Failed to fetch response body of {}: {}", match.url, e.getMessage());
+        }
+    }
+
+    private synchronized void store(CapturedResponse response) throws IOException {
+        if (!active) {
+            return;
+        }
+        captured.incrementAndGet();
+        buffer.addLast(response);
+        inMemoryCount++;
+        bufferedBytes += response.size();
+        // Spilled responses only hold a path, so the bounds apply to in-memory bodies
+        while (inMemoryCount > MAX_ENTRIES || bufferedBytes > MAX_BUFFER_BYTES) {
+            if (SPILL_DIR != null) {
+                spill(firstInMemory());
+                continue;
+            }
+            CapturedResponse oldest = buffer.pollFirst();
+            bufferedBytes -= oldest.size();
+            inMemoryCount--;
+            dropped.incrementAndGet();
+        }
+    }
+
+    private CapturedResponse firstInMemory() {
+        for (CapturedResponse response : buffer) {
+            if (!response.isSpilled()) {
+                return response;
+            }
+        }
+        throw new IllegalStateException("No in-memory response left to spill");
+    }
+
+    private void spill(CapturedResponse response) throws IOException {
+        Files.createDirectories(SPILL_DIR);
+        Path file = Files.createTempFile(SPILL_DIR, "capture-", ".json");
+        spillFiles.add(file);
+        Files.writeString(file, response.body);
+        bufferedBytes -= response.size();
+        inMemoryCount--;
+        response.spilledFile = file;
+        response.body = null;
+        spilled.incrementAndGet();
+    }
+
+    /**
+     * Removes and returns every response captured so far.
+     */
+    public synchronized List<CapturedResponse> drain() {
+        List<CapturedResponse> drained = new ArrayList<>(buffer);
+        buffer.clear();
+        bufferedBytes = 0;
+        inMemoryCount = 0;
+        return drained;
+    }
+
+    /**
+     * Removes every captured response and parses the bodies, unparsable bodies are skipped.
+     *
+     * @return The parsed bodies, pass the list to ParseToolKit.dictSearch to search them all.
+     */
+    public List<Object> drainParsed() {
+        List<Object> parsed = new ArrayList<>();
+        for (CapturedResponse response : drain()) {
+            try {
+                parsed.add(response.parse());
+            } catch (Exception e) {
+                logger.warn("Failed to parse captured body of {}: {}", response.getUrl(), e.getMessage());
+            }
+        }
+        return parsed;
+    }
+
+    public long getCapturedCount() { return captured.get(); }
+    public long getDroppedCount() { return dropped.get(); }
+    public long getSpilledCount() { return spilled.get(); }
+
+    /**
+     * Stops capturing and releases the listeners, the fetcher thread and the spill files.
+     * Read the drained responses before closing: spilled bodies are deleted, and responses
+     * still buffered are discarded. The Network domain stays enabled, the fetch profile and
+     * navigation tracking of DriverInit share it on the same session.
+     */
+    @Override
+    public void close() {
+        active = false;
+        for (DevToolsEvents.Subscription subscription : subscriptions) {
+            subscription.close();
+        }
+        subscriptions.clear();
+        pending.clear();
+        fetcher.shutdownNow();
+        synchronized (this) {
+            for (Path file : spillFiles) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    logger.warn("Failed to delete spill file {}: {}", file, e.getMessage());
+                }
+            }
+            spillFiles.clear();
+            buffer.clear();
+            bufferedBytes = 0;
+            inMemoryCount = 0;
+        }
+        logger.info("Network capture stopped, captured: {}, spilled: {}, dropped: {}",
+                captured.get(), spilled.get(), dropped.get());
+    }
+}
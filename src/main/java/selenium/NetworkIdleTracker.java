@@ -0,0 +1,116 @@
+package selenium;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.devtools.v115.network.Network;
+
+/**
+ * Counts the requests in flight on a DevTools session, used by {@link Readiness#networkIdle(long)}.
+ * WebSocket and long-polling connections never finish, so idle means "no request started or
+ * finished for the quiet period" rather than "zero requests open" once the deadline is near.
+ * One tracker is shared by every DriverAction bound to the same driver, so creating many
+ * short-lived DriverActions (one per crawl task) does not pile up listeners on the session.
+ */
+class NetworkIdleTracker implements AutoCloseable {
+    private static final long CHECK_INTERVAL_MILLIS = 25;
+    private static final Map<WebDriver, NetworkIdleTracker> TRACKERS =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final List<DevToolsEvents.Subscription> subscriptions = new ArrayList<>();
+    private volatile long lastActivityNanos = System.nanoTime();
+
+    private NetworkIdleTracker(DevTools devTools) {
+        devTools.createSessionIfThereIsNotOne();
+        devTools.send(Network.enable(Optional.empty(), Optional.empty(), Optional.empty()));
+        DevToolsEvents events = DevToolsEvents.of(devTools);
+        subscriptions.add(events.subscribe(devTools, Network.requestWillBeSent(), sent -> {
+            inFlight.add(sent.getRequestId().toString());
+            lastActivityNanos = System.nanoTime();
+        }));
+        subscriptions.add(events.subscribe(devTools, Network.loadingFinished(), finished -> {
+            inFlight.remove(finished.getRequestId().toString());
+            lastActivityNanos = System.nanoTime();
+        }));
+        subscriptions.add(events.subscribe(devTools, Network.loadingFailed(), failed -> {
+            inFlight.remove(failed.getRequestId().toString());
+            lastActivityNanos = System.nanoTime();
+        }));
+    }
+
+    /**
+     * @return The tracker shared by every DriverAction bound to the driver.
+     */
+    static NetworkIdleTracker forDriver(WebDriver driver) {
+        return TRACKERS.computeIfAbsent(driver, d -> new NetworkIdleTracker(((HasDevTools) d).getDevTools()));
+    }
+
+    /**
+     * Removes the driver's tracker and its listeners, e.g. before the session is reused for
+     * unrelated work. The next network-idle navigation creates a new one.
+     */
+    static void release(WebDriver driver) {
+        NetworkIdleTracker tracker = TRACKERS.remove(driver);
+        if (tracker != null) {
+            tracker.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        for (DevToolsEvents.Subscription subscription : subscriptions) {
+            subscription.close();
+        }
+        subscriptions.clear();
+        inFlight.clear();
+    }
+
+    /**
+     * Forgets the requests of the previous document, call it right before navigating.
+     */
+    void reset() {
+        inFlight.clear();
+        lastActivityNanos = System.nanoTime();
+    }
+
+    /**
+     * Blocks until no request is in flight for idleMillis.
+     *
+     * @param idleMillis  Quiet period in milliseconds.
+     * @param timeoutMillis Maximum time to wait in milliseconds.
+     * @throws TimeoutException if the network did not settle in time.
+     */
+    void awaitIdle(long idleMillis, long timeoutMillis) {
+        long idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (true) {
+            long now = System.nanoTime();
+            long quietNanos = now - lastActivityNanos;
+            if (quietNanos >= idleNanos && (inFlight.isEmpty() || deadline - now < idleNanos)) {
+                return;
+            }
+            if (now >= deadline) {
+                throw new TimeoutException("Network not idle after " + timeoutMillis + " ms, "
+                        + inFlight.size() + " requests in flight");
+            }
+            try {
+                Thread.sleep(CHECK_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TimeoutException("Interrupted while waiting for network idle");
+            }
+        }
+    }
+}
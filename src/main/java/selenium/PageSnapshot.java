@@ -0,0 +1,344 @@
+package selenium;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.dom4j.Document;
+import org.dom4j.DocumentException;
+import org.dom4j.DocumentHelper;
+import org.dom4j.Element;
+import org.dom4j.Node;
+import org.dom4j.XPath;
+import org.dom4j.io.SAXReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A parsed copy of the current document, queried in-process with dom4j and jaxen instead of
+ * one WebDriver round trip per lookup. Locators use the same strategies and strings as
+ * {@link DriverAction}; they are translated to XPath once and the compiled expressions are
+ * shared by every snapshot.
+ *
+ * The browser serializes the document as XHTML, so the markup has already been through the
+ * browser's own tolerant HTML parser and dom4j receives well-formed XML. Attributes are read
+ * as written in the markup (e.g. a relative href), not as DOM properties. The serializer keeps
+ * attribute names that are not XML names, such as the framework bindings @click, :class or
+ * [ngModel]; every invalid character of such a name is replaced by '_' (lowercased by the
+ * HTML parser, [ngModel] is read as _ngmodel_). The names that were valid keep their
+ * attributes, a repaired name that is already taken on the element gets the first free suffix
+ * _2, _3... (:title next to _title is read as _title_2).
+ */
+public class PageSnapshot {
+    private static final Logger logger = LoggerFactory.getLogger(PageSnapshot.class);
+    static final String JS_SERIALIZE = "return new XMLSerializer().serializeToString(document);";
+    private static final Pattern XHTML_NAMESPACE = Pattern.compile(" xmlns=\"http://www\\.w3\\.org/1999/xhtml\"");
+    /** Characters outside the XML 1.0 range, the serializer does not filter them out of text. */
+    private static final Pattern INVALID_XML_CHARS = Pattern.compile("[^\\x09\\x0A\\x0D\\x20-\\uD7FF\\uE000-\\uFFFD\\x{10000}-\\x{10FFFF}]");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    /** Comments and start tags, the serializer escapes '>' inside attribute values. */
+    private static final Pattern MARKUP = Pattern.compile("<!--.*?-->|<[A-Za-z][^>]*>", Pattern.DOTALL);
+    private static final Pattern ATTRIBUTE = Pattern.compile("(\\s+)([^\\s=\"/>]+)(=\"[^\"]*\")?");
+    /** Names dom4j accepts, prefixes other than the ones the serializer declares are unbound. */
+    private static final Pattern XML_NAME = Pattern.compile("(?:(?:xml|xmlns|xlink):)?[A-Za-z_][\\w.\\-]*");
+    private static final Pattern INVALID_NAME_CHARS = Pattern.compile("[^\\w.\\-]");
+    /** Compiled expressions shared by every snapshot, jaxen expressions are safe to evaluate concurrently. */
+    private static final Map<String, XPath> XPATH_CACHE = new ConcurrentHashMap<>();
+    private static final int XPATH_CACHE_LIMIT = 4096;
+    private static final AtomicInteger PARSER_INDEX = new AtomicInteger();
+    private static final ExecutorService PARSE_POOL = Executors.newFixedThreadPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors() - 1), r -> {
+                Thread thread = new Thread(r, "page-snapshot-parser-" + PARSER_INDEX.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private final Document document;
+    private final String byType;
+    private final long parseMillis;
+
+    private PageSnapshot(Document document, String byType, long parseMillis) {
+        this.document = document;
+        this.byType = byType;
+        this.parseMillis = parseMillis;
+    }
+
+    /**
+     * Parses a serialized document.
+     *
+     * @param xhtml  The document as returned by {@link #JS_SERIALIZE}.
+     * @param byType The locator strategy of the lookups, see DriverAction's inner_byString.
+     * @return The snapshot.
+     */
+    public static PageSnapshot parse(String xhtml, String byType) {
+        long startNanos = System.nanoTime();
+        String xml = repairAttributeNames(
+                INVALID_XML_CHARS.matcher(XHTML_NAMESPACE.matcher(xhtml).replaceAll("")).replaceAll(""));
+        try {
+            SAXReader reader = new SAXReader();
+            reader.setIncludeExternalDTDDeclarations(false);
+            try {
+                reader.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+            } catch (Exception e) {
+                // Parser without the feature, the serialized doctype has no external subset anyway
+            }
+            Document document = reader.read(new StringReader(xml));
+            return new PageSnapshot(document, byType,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        } catch (DocumentException e) {
+            logger.error("Failed to parse page snapshot: {}", e.getMessage());
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Rewrites the attribute names that are not XML names, the markup is returned as is when
+     * every name is valid.
+     */
+    static String repairAttributeNames(String xml) {
+        Matcher tag = MARKUP.matcher(xml);
+        StringBuilder out = null;
+        int copied = 0;
+        while (tag.find()) {
+            if (xml.startsWith("<!--", tag.start())) {
+                continue;
+            }
+            String repaired = repairTag(tag.group());
+            if (repaired != null) {
+                if (out == null) {
+                    out = new StringBuilder(xml.length());
+                }
+                out.append(xml, copied, tag.start()).append(repaired);
+                copied = tag.end();
+            }
+        }
+        return out == null ? xml : out.append(xml, copied, xml.length()).toString();
+    }
+
+    /**
+     * @return The tag with its attribute names repaired, null if they are all valid.
+     */
+    private static String repairTag(String tag) {
+        Matcher attribute = ATTRIBUTE.matcher(tag);
+        Set<String> names = new HashSet<>();
+        boolean valid = true;
+        while (attribute.find()) {
+            if (XML_NAME.matcher(attribute.group(2)).matches()) {
+                names.add(attribute.group(2));
+            } else {
+                valid = false;
+            }
+        }
+        if (valid) {
+            return null;
+        }
+        attribute.reset();
+        StringBuilder out = new StringBuilder(tag.length());
+        int copied = 0;
+        while (attribute.find()) {
+            String name = attribute.group(2);
+            if (!XML_NAME.matcher(name).matches()) {
+                name = uniqueName(repairName(name), names);
+            }
+            out.append(tag, copied, attribute.start()).append(attribute.group(1)).append(name);
+            if (attribute.group(3) != null) {
+                out.append(attribute.group(3));
+            }
+            copied = attribute.end();
+        }
+        return out.append(tag, copied, tag.length()).toString();
+    }
+
+    private static String repairName(String name) {
+        String repaired = INVALID_NAME_CHARS.matcher(name).replaceAll("_");
+        if (!Character.isLetter(repaired.charAt(0)) && repaired.charAt(0) != '_') {
+            repaired = "_" + repaired;
+        }
+        return repaired;
+    }
+
+    /**
+     * @return The name, or the name with the first free suffix _2, _3... when the element already
+     * has it; the returned name is reserved in names.
+     */
+    private static String uniqueName(String name, Set<String> names) {
+        String unique = name;
+        for (int suffix = 2; !names.add(unique); suffix++) {
+            unique = name + "_" + suffix;
+        }
+        return unique;
+    }
+
+    /**
+     * Parses a serialized document on the shared parser pool.
+     */
+    public static CompletableFuture<PageSnapshot> parseAsync(String xhtml, String byType) {
+        return CompletableFuture.supplyAsync(() -> parse(xhtml, byType), PARSE_POOL);
+    }
+
+    /**
+     * @return The first element matching the locator, or null.
+     */
+    public Element find(String locator) {
+        return find(locator, null);
+    }
+
+    /**
+     * @return Every element matching the locator, in document order.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Element> findAll(String locator) {
+        List<Element> elements = new ArrayList<>();
+        for (Object node : (List<Object>) compile(locator, false).selectNodes(document)) {
+            if (node instanceof Element) {
+                elements.add((Element) node);
+            }
+        }
+        return elements;
+    }
+
+    /**
+     * @param locator The locator string.
+     * @param context Element the locator is relative to, null for an absolute lookup.
+     * @return The first matching element, or null.
+     */
+    public Element find(String locator, Element context) {
+        if (context != null && (locator == null || locator.isEmpty() || ".".equals(locator))) {
+            return context;
+        }
+        Node node = compile(locator, context != null).selectSingleNode(context != null ? context : document);
+        return node instanceof Element ? (Element) node : null;
+    }
+
+    /**
+     * Reads the text (attribute null) or an attribute of the first element matching the locator.
+     *
+     * @return The trimmed value, or null if no element matches.
+     */
+    public String read(String locator, String attribute) {
+        Element element = find(locator);
+        return element == null ? null : read(element, attribute);
+    }
+
+    /**
+     * Counterpart of {@link DriverAction#getElementsAttribute(Map, String)} over the snapshot.
+     *
+     * @param locators  Field name to locator string.
+     * @param attribute The attribute name, or null to read the text.
+     * @return Field name to trimmed value in input order, missing elements and absent
+     *         attributes both map to null.
+     */
+    public Map<String, String> read(Map<String, String> locators, String attribute) {
+        return read(locators, attribute, null);
+    }
+
+    /**
+     * Counterpart of {@link DriverAction#getElementsAttribute(Map, String, Set)} over the snapshot.
+     *
+     * @param locators  Field name to locator string.
+     * @param attribute The attribute name, or null to read the text.
+     * @param missing   Receives the field names whose element was not found, may be null.
+     * @return Field name to trimmed value in input order, missing elements and absent
+     *         attributes both map to null.
+     */
+    public Map<String, String> read(Map<String, String> locators, String attribute, Set<String> missing) {
+        Map<String, String> result = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : locators.entrySet()) {
+            Element element = find(entry.getValue());
+            if (element == null && missing != null) {
+                missing.add(entry.getKey());
+            }
+            result.put(entry.getKey(), element == null ? null : read(element, attribute));
+        }
+        return result;
+    }
+
+    /**
+     * Counterpart of {@link DriverAction#extractList(ExtractionTemplate)} over the snapshot.
+     *
+     * @return One map per row, keyed by field name in template order.
+     */
+    public List<Map<String, String>> extractList(ExtractionTemplate template) {
+        Map<String, String[]> fields = template.getFields();
+        List<Map<String, String>> rows = new ArrayList<>();
+        for (Element row : findAll(template.getRowLocator())) {
+            Map<String, String> item = new LinkedHashMap<>();
+            for (Map.Entry<String, String[]> field : fields.entrySet()) {
+                Element element = find(field.getValue()[0], row);
+                item.put(field.getKey(), element == null ? null : read(element, field.getValue()[1]));
+            }
+            rows.add(item);
+        }
+        return rows;
+    }
+
+    private static String read(Element element, String attribute) {
+        if (attribute == null) {
+            return WHITESPACE.matcher(element.getStringValue()).replaceAll(" ").trim();
+        }
+        String value = element.attributeValue(attribute);
+        return value == null ? null : value.trim();
+    }
+
+    private XPath compile(String locator, boolean relative) {
+        String key = byType + '\u0000' + relative + '\u0000' + locator;
+        XPath cached = XPATH_CACHE.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        if (XPATH_CACHE.size() >= XPATH_CACHE_LIMIT) {
+            XPATH_CACHE.clear();
+        }
+        XPath xpath = DocumentHelper.createXPath(toXPath(byType, locator, relative));
+        XPATH_CACHE.put(key, xpath);
+        return xpath;
+    }
+
+    /**
+     * Translates a locator of the given strategy into XPath, see DriverAction's ByLocator.
+     */
+    static String toXPath(String byType, String value, boolean relative) {
+        String prefix = relative ? ".//" : "//";
+        String literal = CssXPath.literal(value);
+        switch (byType) {
+            case "xpath":
+                return value;
+            case "css":
+                return CssXPath.toXPath(value, relative);
+            case "id":
+                return prefix + "*[@id=" + literal + "]";
+            case "name":
+                return prefix + "*[@name=" + literal + "]";
+            case "class":
+                return prefix + "*[contains(concat(' ', normalize-space(@class), ' '), " + CssXPath.literal(" " + value + " ") + ")]";
+            case "tag":
+                return prefix + value.toLowerCase();
+            case "linkText":
+                return prefix + "a[normalize-space(.)=" + literal + "]";
+            case "partialLinkText":
+                return prefix + "a[contains(., " + literal + ")]";
+            default:
+                throw new IllegalArgumentException("Unsupported By type: " + byType);
+        }
+    }
+
+    public Document getDocument() {
+        return document;
+    }
+
+    public long getParseMillis() {
+        return parseMillis;
+    }
+}
@@ -0,0 +1,273 @@
+package selenium;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import selenium.Connection.DriverInit;
+
+/**
+ * A browser user-data-dir prepared once (caches, consent cookies, logins) and cloned
+ * cheaply for every new session. Browsers rewrite files in place everywhere in the profile,
+ * cache entries and the LevelDB logs of service workers included, so a clone never shares a
+ * file with the template: on a filesystem with copy-on-write support (btrfs, xfs) the clone
+ * is a reflink copy made by GNU cp, elsewhere a plain copy. Reflinks need the template and
+ * the clone root on the same filesystem; tmpfs has no reflinks, but plain copies into RAM
+ * are fast as well.
+ */
+public class ProfileTemplate {
+    private static final Logger logger = LoggerFactory.getLogger(ProfileTemplate.class);
+    private static final Map<Path, ProfileTemplate> TEMPLATES = new ConcurrentHashMap<>();
+
+    /** Lock files of a running browser, a clone must never inherit them. */
+    private static final Set<String> SKIPPED_FILES = Set.of(
+        "SingletonLock", "SingletonSocket", "SingletonCookie", "lockfile", "lock", "parent.lock", ".parentlock");
+
+    private final Path templateDir;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private ScheduledExecutorService refresher;
+    /** Set once a reflink clone failed, later clones go straight to the plain copy. */
+    private final AtomicBoolean reflinkUnavailable = new AtomicBoolean(false);
+
+    private ProfileTemplate(Path templateDir) {
+        this.templateDir = templateDir;
+    }
+
+    /**
+     * Returns the template registered for a directory, so that clones and refreshes of
+     * the same directory are coordinated.
+     *
+     * @param templateDir The template user-data-dir.
+     * @return The template for the directory.
+     */
+    public static ProfileTemplate forDirectory(String templateDir) {
+        Path path = Paths.get(templateDir).toAbsolutePath().normalize();
+        return TEMPLATES.computeIfAbsent(path, ProfileTemplate::new);
+    }
+
+    /**
+     * @return /dev/shm when it is available and writable, the JVM temp dir otherwise.
+     */
+    public static Path defaultCloneRoot() {
+        Path shm = Paths.get("/dev/shm");
+        if (Files.isDirectory(shm) && Files.isWritable(shm)) {
+            return shm;
+        }
+        return Paths.get(System.getProperty("java.io.tmpdir"));
+    }
+
+    public Path getTemplateDir() {
+        return templateDir;
+    }
+
+    /**
+     * Clones the template into a new directory under the clone root.
+     *
+     * @param cloneRoot Directory the clone is created in.
+     * @return The cloned user-data-dir.
+     * @throws IOException if the template does not exist or the clone fails.
+     */
+    public Path cloneInto(Path cloneRoot) throws IOException {
+        lock.readLock().lock();
+        try {
+            if (!Files.isDirectory(templateDir)) {
+                throw new IOException("Profile template not found at: " + templateDir
+                        + ", prepare it with refresh() first");
+            }
+            Files.createDirectories(cloneRoot);
+            Path clone = Files.createTempDirectory(cloneRoot, "profile-");
+            if (!reflinkClone(clone)) {
+                copyTree(templateDir, clone);
+            }
+            return clone;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuilds the template: a copy of the current template is opened in a browser,
+     * the seeder runs its warm-up flow (consent, login, visiting the target pages),
+     * then the result replaces the template. Clones taken meanwhile keep using the old one.
+     *
+     * @param seleniumDriverType "Chrome" or "Firefox".
+     * @param driverOptionParam  Extra driver arguments, may be null.
+     * @param headless           Whether to start the browser headless.
+     * @param seeder             Flow run against the browser to warm up the profile.
+     */
+    public void refresh(String seleniumDriverType, List<String> driverOptionParam, boolean headless,
+            Consumer<DriverInit> seeder) {
+        Path staging = null;
+        try {
+            Path parent = templateDir.getParent() != null ? templateDir.getParent() : Paths.get(".");
+            Files.createDirectories(parent);
+            staging = Files.createTempDirectory(parent, templateDir.getFileName() + "-staging-");
+            lock.readLock().lock();
+            try {
+                if (Files.isDirectory(templateDir)) {
+                    copyTree(templateDir, staging);
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            DriverInit driverInit = new DriverInit(seleniumDriverType, driverOptionParam, headless,
+                    Map.of("userDataDir", staging.toString()));
+            try {
+                seeder.accept(driverInit);
+            } finally {
+                driverInit.quit();
+            }
+
+            lock.writeLock().lock();
+            try {
+                deleteRecursively(templateDir);
+                Files.move(staging, templateDir, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logger.info("Profile template refreshed at {}", templateDir);
+        } catch (Exception e) {
+            logger.error("Failed to refresh profile template {}: {}", templateDir, e.getMessage());
+            if (staging != null) {
+                deleteRecursively(staging);
+            }
+        }
+    }
+
+    /**
+     * Refreshes the template now and then every {@code periodMinutes} on a background thread.
+     */
+    public synchronized void scheduleRefresh(String seleniumDriverType, List<String> driverOptionParam,
+            boolean headless, Consumer<DriverInit> seeder, long periodMinutes) {
+        stopRefresh();
+        refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "profile-template-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(
+                () -> refresh(seleniumDriverType, driverOptionParam, headless, seeder),
+                0, periodMinutes, TimeUnit.MINUTES);
+    }
+
+    public synchronized void stopRefresh() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+            refresher = null;
+        }
+    }
+
+    /**
+     * Clones the template with copy-on-write reflinks, every file is shared until either side
+     * writes to it.
+     *
+     * @return false if reflinks are not available, the clone directory is then left empty.
+     */
+    private boolean reflinkClone(Path clone) throws IOException {
+        if (reflinkUnavailable.get()) {
+            return false;
+        }
+        if (!Files.getFileStore(templateDir).equals(Files.getFileStore(clone))) {
+            disableReflinks("the template and " + clone.getParent() + " are on different filesystems");
+            return false;
+        }
+        String output;
+        int exitCode;
+        try {
+            Process process = new ProcessBuilder("cp", "-a", "--reflink=always",
+                    templateDir.toString() + "/.", clone.toString()).redirectErrorStream(true).start();
+            output = new String(process.getInputStream().readAllBytes()).trim();
+            exitCode = process.waitFor();
+        } catch (IOException e) {
+            // No GNU cp, e.g. on Windows
+            disableReflinks(e.getMessage());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            deleteRecursively(clone);
+            throw new IOException("Interrupted while cloning " + templateDir, e);
+        }
+        if (exitCode != 0) {
+            disableReflinks(output);
+            deleteRecursively(clone);
+            Files.createDirectories(clone);
+            return false;
+        }
+        try (Stream<Path> paths = Files.walk(clone)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                if (SKIPPED_FILES.contains(path.getFileName().toString())) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+        return true;
+    }
+
+    private void disableReflinks(String reason) {
+        if (reflinkUnavailable.compareAndSet(false, true)) {
+            logger.info("Reflink clones of {} are unavailable ({}), cloning with plain copies", templateDir, reason);
+        }
+    }
+
+    private static void copyTree(Path source, Path target) throws IOException {
+        Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Files.createDirectories(target.resolve(source.relativize(dir).toString()));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                String name = file.getFileName().toString();
+                if (SKIPPED_FILES.contains(name)) {
+                    return FileVisitResult.CONTINUE;
+                }
+                Path destination = target.resolve(source.relativize(file).toString());
+                Files.copy(file, destination, StandardCopyOption.COPY_ATTRIBUTES);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Deletes a directory tree, errors are logged instead of thrown.
+     */
+    static void deleteRecursively(Path dir) {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    logger.warn("Failed to delete {}: {}", path, e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            logger.warn("Failed to delete {}: {}", dir, e.getMessage());
+        }
+    }
+}
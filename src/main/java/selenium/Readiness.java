@@ -0,0 +1,88 @@
+package selenium;
+
+import java.util.function.Predicate;
+
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Condition a navigation waits for in {@link DriverAction#navigate(String, Readiness)}.
+ * Combined with the "eager" or "none" page load strategy of {@link Connection.DriverInit},
+ * a page counts as ready as soon as what the task needs is there instead of once every
+ * image, font and tracker has loaded.
+ */
+public class Readiness {
+
+    public enum Type { DOM_CONTENT_LOADED, LOCATOR_PRESENT, NETWORK_IDLE, CUSTOM }
+
+    private final Type type;
+    private final String locator;
+    private final long idleMillis;
+    private final Predicate<WebDriver> predicate;
+    private final String description;
+
+    private Readiness(Type type, String locator, long idleMillis, Predicate<WebDriver> predicate, String description) {
+        this.type = type;
+        this.locator = locator;
+        this.idleMillis = idleMillis;
+        this.predicate = predicate;
+        this.description = description;
+    }
+
+    /**
+     * Ready once the document is parsed (readyState is no longer "loading").
+     */
+    public static Readiness domContentLoaded() {
+        return new Readiness(Type.DOM_CONTENT_LOADED, null, 0, null, "DOMContentLoaded");
+    }
+
+    /**
+     * Ready once an element matching the locator is present in the new document.
+     *
+     * @param locator Locator string, evaluated with the DriverAction's locator strategy.
+     */
+    public static Readiness locatorPresent(String locator) {
+        return new Readiness(Type.LOCATOR_PRESENT, locator, 0, null, "locator " + locator);
+    }
+
+    /**
+     * Ready once no request has been in flight for the given time. Chrome sessions track
+     * requests through DevTools, other browsers fall back to the Resource Timing entries
+     * of the page, which only see finished requests.
+     *
+     * @param idleMillis Quiet period in milliseconds.
+     */
+    public static Readiness networkIdle(long idleMillis) {
+        return new Readiness(Type.NETWORK_IDLE, null, idleMillis, null, "network idle " + idleMillis + " ms");
+    }
+
+    /**
+     * Ready once the predicate holds, it is polled with the DriverAction's polling interval.
+     *
+     * @param description Name of the condition used in logs.
+     * @param predicate   The condition, evaluated against the driver.
+     */
+    public static Readiness custom(String description, Predicate<WebDriver> predicate) {
+        return new Readiness(Type.CUSTOM, null, 0, predicate, description);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getLocator() {
+        return locator;
+    }
+
+    public long getIdleMillis() {
+        return idleMillis;
+    }
+
+    Predicate<WebDriver> getPredicate() {
+        return predicate;
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+}
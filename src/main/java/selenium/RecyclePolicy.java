@@ -0,0 +1,105 @@
+package selenium;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.v115.performance.Performance;
+import org.openqa.selenium.devtools.v115.performance.model.Metric;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Decides when a long-lived browser should be replaced. Chrome sessions are sampled through
+ * CDP Performance.getMetrics, every browser is limited by its navigation count.
+ * Attach it with {@link Connection.DriverInit#setRecyclePolicy(RecyclePolicy)} and call
+ * {@link Connection.DriverInit#recycleIfNeeded()} between tasks.
+ */
+public class RecyclePolicy {
+    private static final Logger logger = LoggerFactory.getLogger(RecyclePolicy.class);
+
+    // Default Policy Parameters, a limit of 0 disables the check
+    private long MAX_JS_HEAP_MB = 512;
+    private long MAX_NODES = 200000;
+    private long MAX_DOCUMENTS = 50;
+    private long MAX_NAVIGATIONS = 200;
+
+    /**
+     * Default constructor initializing default limits.
+     */
+    public RecyclePolicy() {
+    }
+
+    /**
+     * Constructor that allows customization of the limits using a Map.
+     * Supported keys: maxJsHeapMb, maxNodes, maxDocuments, maxNavigations.
+     *
+     * @param params Map containing policy limits, omit keys to keep the defaults.
+     */
+    public RecyclePolicy(Map<String, String> params) {
+        if (params.containsKey("maxJsHeapMb"))
+            this.MAX_JS_HEAP_MB = Long.parseLong(params.get("maxJsHeapMb"));
+        if (params.containsKey("maxNodes"))
+            this.MAX_NODES = Long.parseLong(params.get("maxNodes"));
+        if (params.containsKey("maxDocuments"))
+            this.MAX_DOCUMENTS = Long.parseLong(params.get("maxDocuments"));
+        if (params.containsKey("maxNavigations"))
+            this.MAX_NAVIGATIONS = Long.parseLong(params.get("maxNavigations"));
+    }
+
+    /**
+     * Samples the browser and compares it to the limits.
+     *
+     * @param driver      The WebDriver to sample.
+     * @param navigations Navigations performed by the browser so far.
+     * @return The reason the browser should be recycled, or null if it is within limits.
+     */
+    public String check(WebDriver driver, long navigations) {
+        if (MAX_NAVIGATIONS > 0 && navigations >= MAX_NAVIGATIONS) {
+            return "navigations " + navigations + " >= " + MAX_NAVIGATIONS;
+        }
+        if (!(driver instanceof ChromeDriver)) {
+            return null;
+        }
+        Map<String, Number> metrics = sampleMetrics((ChromeDriver) driver);
+        long heapMb = metrics.getOrDefault("JSHeapUsedSize", 0).longValue() / (1024 * 1024);
+        long nodes = metrics.getOrDefault("Nodes", 0).longValue();
+        long documents = metrics.getOrDefault("Documents", 0).longValue();
+        if (MAX_JS_HEAP_MB > 0 && heapMb >= MAX_JS_HEAP_MB) {
+            return "JSHeapUsedSize " + heapMb + "MB >= " + MAX_JS_HEAP_MB + "MB";
+        }
+        if (MAX_NODES > 0 && nodes >= MAX_NODES) {
+            return "Nodes " + nodes + " >= " + MAX_NODES;
+        }
+        if (MAX_DOCUMENTS > 0 && documents >= MAX_DOCUMENTS) {
+            return "Documents " + documents + " >= " + MAX_DOCUMENTS;
+        }
+        return null;
+    }
+
+    /**
+     * Reads the CDP performance metrics of a Chrome session.
+     *
+     * @param driver The ChromeDriver to sample.
+     * @return Metric name to value, empty if sampling failed.
+     */
+    public static Map<String, Number> sampleMetrics(ChromeDriver driver) {
+        Map<String, Number> metrics = new HashMap<>();
+        try {
+            DevTools devTools = driver.getDevTools();
+            devTools.createSessionIfThereIsNotOne();
+            devTools.send(Performance.enable(Optional.empty()));
+            List<Metric> sampled = devTools.send(Performance.getMetrics());
+            for (Metric metric : sampled) {
+                metrics.put(metric.getName(), metric.getValue());
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to sample browser metrics: {}", e.getMessage());
+        }
+        return metrics;
+    }
+}
@@ -0,0 +1,130 @@
+package selenium;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.openqa.selenium.ElementClickInterceptedException;
+import org.openqa.selenium.ElementNotInteractableException;
+import org.openqa.selenium.InvalidElementStateException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.interactions.MoveTargetOutOfBoundsException;
+
+/**
+ * Decides which failures of an element action are transient and how long to back off
+ * before retrying in place. Transient failures are the ones a re-render causes: the element
+ * was replaced (stale), covered by an overlay or spinner (click intercepted), or not yet
+ * interactable or inside the viewport. Everything else, e.g. a lost session, an invalid
+ * selector or a wait that already timed out, is fatal and rethrown at once.
+ */
+public class RetryPolicy {
+
+    public enum Verdict { RETRYABLE, FATAL }
+
+    // Default Retry Parameters
+    private int MAX_ATTEMPTS = 4;
+    private long BACKOFF_BASE_MILLIS = 50;
+    private long BACKOFF_MAX_MILLIS = 1000;
+
+    private final AtomicLongArray retries = new AtomicLongArray(ActionTrace.ActionType.values().length);
+    private final AtomicLongArray recovered = new AtomicLongArray(ActionTrace.ActionType.values().length);
+
+    public RetryPolicy() {
+    }
+
+    /**
+     * Constructor that reads the parameters from the provided map:
+     * maxAttempts (1 disables retrying), backoffBaseMillis, backoffMaxMillis.
+     *
+     * @param params Map containing retry parameters, omit keys to keep the defaults.
+     */
+    public RetryPolicy(Map<String, String> params) {
+        if (params.containsKey("maxAttempts"))
+            this.MAX_ATTEMPTS = Integer.parseInt(params.get("maxAttempts"));
+        if (params.containsKey("backoffBaseMillis"))
+            this.BACKOFF_BASE_MILLIS = Long.parseLong(params.get("backoffBaseMillis"));
+        if (params.containsKey("backoffMaxMillis"))
+            this.BACKOFF_MAX_MILLIS = Long.parseLong(params.get("backoffMaxMillis"));
+        if (this.MAX_ATTEMPTS < 1) {
+            throw new IllegalArgumentException("maxAttempts must be >= 1");
+        }
+    }
+
+    /**
+     * Classifies a failure of an element action.
+     */
+    public Verdict classify(Throwable error) {
+        if (error instanceof StaleElementReferenceException
+                || error instanceof ElementClickInterceptedException
+                || error instanceof ElementNotInteractableException
+                || error instanceof InvalidElementStateException
+                || error instanceof MoveTargetOutOfBoundsException) {
+            return Verdict.RETRYABLE;
+        }
+        return Verdict.FATAL;
+    }
+
+    /**
+     * @param attempt The attempt that just failed, starting at 1.
+     * @return true if the failure is transient and attempts are left.
+     */
+    boolean shouldRetry(Throwable error, int attempt) {
+        return attempt < MAX_ATTEMPTS && classify(error) == Verdict.RETRYABLE;
+    }
+
+    /**
+     * Sleeps a jittered, exponentially growing delay. Stale elements are retried at once:
+     * the replacement is usually in the document already.
+     */
+    void backoff(Throwable error, int attempt) {
+        if (error instanceof StaleElementReferenceException && attempt == 1) {
+            return;
+        }
+        long ceiling = Math.min(BACKOFF_MAX_MILLIS, BACKOFF_BASE_MILLIS << Math.min(20, attempt - 1));
+        long delay = ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    void recordRetry(ActionTrace.ActionType type) {
+        retries.incrementAndGet(type.ordinal());
+    }
+
+    void recordRecovery(ActionTrace.ActionType type) {
+        recovered.incrementAndGet(type.ordinal());
+    }
+
+    /**
+     * @return Number of retries per action type, types without retries are omitted.
+     */
+    public Map<ActionTrace.ActionType, Long> getRetryCounts() {
+        return snapshot(retries);
+    }
+
+    /**
+     * @return Number of actions per type that succeeded after at least one retry.
+     */
+    public Map<ActionTrace.ActionType, Long> getRecoveryCounts() {
+        return snapshot(recovered);
+    }
+
+    private static Map<ActionTrace.ActionType, Long> snapshot(AtomicLongArray counts) {
+        Map<ActionTrace.ActionType, Long> snapshot = new EnumMap<>(ActionTrace.ActionType.class);
+        for (ActionTrace.ActionType type : ActionTrace.ActionType.values()) {
+            long count = counts.get(type.ordinal());
+            if (count > 0) {
+                snapshot.put(type, count);
+            }
+        }
+        return snapshot;
+    }
+
+    public int getMaxAttempts() {
+        return MAX_ATTEMPTS;
+    }
+}
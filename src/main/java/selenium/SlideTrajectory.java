@@ -0,0 +1,153 @@
+package selenium;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.interactions.PointerInput;
+import org.openqa.selenium.interactions.Sequence;
+
+/**
+ * A precomputed, humanlike drag path: an ease-out curve with a small overshoot that is
+ * corrected at the end and jitter across the drag direction. The whole path is sent as
+ * one W3C pointer action sequence with a duration per move, so the browser replays it
+ * natively instead of receiving one request per step.
+ */
+public class SlideTrajectory {
+
+    /**
+     * One relative pointer move.
+     */
+    public static class Move {
+        private final int dx;
+        private final int dy;
+        private final long millis;
+
+        Move(int dx, int dy, long millis) {
+            this.dx = dx;
+            this.dy = dy;
+            this.millis = millis;
+        }
+
+        public int getDx() { return dx; }
+        public int getDy() { return dy; }
+        public long getMillis() { return millis; }
+    }
+
+    private final List<Move> moves;
+
+    SlideTrajectory(List<Move> moves) {
+        this.moves = Collections.unmodifiableList(moves);
+    }
+
+    public List<Move> getMoves() {
+        return moves;
+    }
+
+    public long getTotalMillis() {
+        long total = 0;
+        for (Move move : moves) {
+            total += move.millis;
+        }
+        return total;
+    }
+
+    /**
+     * Builds the pointer sequence: press on the element center, replay the moves, release.
+     *
+     * @param element The element to drag.
+     * @return The sequence to pass to Interactive.perform.
+     */
+    Sequence toSequence(WebElement element) {
+        PointerInput mouse = new PointerInput(PointerInput.Kind.MOUSE, "default mouse");
+        Sequence sequence = new Sequence(mouse, 0);
+        sequence.addAction(mouse.createPointerMove(Duration.ZERO, PointerInput.Origin.fromElement(element), 0, 0));
+        sequence.addAction(mouse.createPointerDown(PointerInput.MouseButton.LEFT.asArg()));
+        for (Move move : moves) {
+            sequence.addAction(mouse.createPointerMove(Duration.ofMillis(move.millis),
+                    PointerInput.Origin.pointer(), move.dx, move.dy));
+        }
+        sequence.addAction(mouse.createPointerUp(PointerInput.MouseButton.LEFT.asArg()));
+        return sequence;
+    }
+
+    /**
+     * Generates trajectories from a seedable random source, the same seed gives
+     * the same trajectories so a known-good path can be replayed.
+     */
+    public static class Generator {
+        private static final int MIN_STEPS = 12;
+        private static final int MAX_STEPS = 60;
+        private static final long MIN_MOVE_MILLIS = 8;
+        private final Random random;
+
+        public Generator() {
+            this.random = new Random();
+        }
+
+        public Generator(long seed) {
+            this.random = new Random(seed);
+        }
+
+        /**
+         * @param dx             Total horizontal offset in pixels.
+         * @param dy             Total vertical offset in pixels.
+         * @param durationMillis Approximate total duration of the drag.
+         * @return A trajectory ending exactly at (dx, dy).
+         */
+        public synchronized SlideTrajectory generate(int dx, int dy, long durationMillis) {
+            double distance = Math.hypot(dx, dy);
+            List<Move> moves = new ArrayList<>();
+            if (distance < 1) {
+                return new SlideTrajectory(moves);
+            }
+            int steps = (int) Math.max(MIN_STEPS, Math.min(MAX_STEPS, distance / 6));
+            // Unit vectors along and across the drag direction
+            double ux = dx / distance;
+            double uy = dy / distance;
+            double px = -uy;
+            double py = ux;
+            double overshoot = distance > 40 ? distance * (0.02 + random.nextDouble() * 0.04) : 0;
+            int correctionSteps = overshoot > 0 ? 2 + random.nextInt(3) : 0;
+            long baseMillis = Math.max(MIN_MOVE_MILLIS, durationMillis / (steps + correctionSteps));
+
+            int lastX = 0;
+            int lastY = 0;
+            for (int i = 1; i <= steps; i++) {
+                double t = (double) i / steps;
+                double along = easeOutCubic(t) * (distance + overshoot);
+                // Jitter fades out towards the end so that the release point stays precise
+                double across = (random.nextDouble() - 0.5) * 3 * (1 - t);
+                int x = (int) Math.round(ux * along + px * across);
+                int y = (int) Math.round(uy * along + py * across);
+                moves.add(new Move(x - lastX, y - lastY, jitterMillis(baseMillis)));
+                lastX = x;
+                lastY = y;
+            }
+            for (int i = 1; i <= correctionSteps; i++) {
+                double t = (double) i / correctionSteps;
+                int x = (int) Math.round(lastX + (dx - lastX) * t);
+                int y = (int) Math.round(lastY + (dy - lastY) * t);
+                moves.add(new Move(x - lastX, y - lastY, jitterMillis(baseMillis * 2)));
+                lastX = x;
+                lastY = y;
+            }
+            if (lastX != dx || lastY != dy) {
+                moves.add(new Move(dx - lastX, dy - lastY, MIN_MOVE_MILLIS));
+            }
+            return new SlideTrajectory(moves);
+        }
+
+        private long jitterMillis(long baseMillis) {
+            return Math.max(MIN_MOVE_MILLIS, Math.round(baseMillis * (0.8 + random.nextDouble() * 0.4)));
+        }
+
+        private static double easeOutCubic(double t) {
+            double inverse = 1 - t;
+            return 1 - inverse * inverse * inverse;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package parsetoolkit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Runs the file-based dictSearch with chunks much smaller than the records, so that every
+ * boundary case of the chunking is crossed.
+ */
+class MappedJsonSearchTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @TempDir
+    Path dir;
+
+    private Path write(String content) throws IOException {
+        Path file = Files.createTempFile(dir, "search", ".json");
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static List<Object> search(Path file, String key, int chunkBytes) {
+        return assertTimeoutPreemptively(TIMEOUT, () -> {
+            try (Stream<ParseToolKit.Pair<String, Object>> results = ParseToolKit.dictSearch(file, List.of(key), chunkBytes)) {
+                return results.map(ParseToolKit.Pair::getSecond).collect(Collectors.toList());
+            }
+        });
+    }
+
+    private static List<Long> longs(List<Object> values) {
+        List<Long> result = new ArrayList<>();
+        for (Object value : values) {
+            result.add(((Number) value).longValue());
+        }
+        return result;
+    }
+
+    @Test
+    void stopsAtTheEndOfTheArrayDespiteTrailingBytes() throws IOException {
+        Path file = write("[{\"k\":1},{\"k\":2}]" + " ".repeat(64));
+
+        assertEquals(List.of(1L, 2L), longs(search(file, "k", 8)));
+    }
+
+    @Test
+    void ignoresTrailingNewlinesAfterTheArray() throws IOException {
+        Path file = write("[{\"k\":1},\n{\"k\":2},\n{\"k\":3}]\n\n\n");
+
+        for (int chunkBytes = 1; chunkBytes <= 32; chunkBytes++) {
+            assertEquals(List.of(1L, 2L, 3L), longs(search(file, "k", chunkBytes)), "chunkBytes " + chunkBytes);
+        }
+    }
+
+    @Test
+    void splitsArraysOnlyBetweenRecords() throws IOException {
+        Path file = write("[{\"k\":\"a,]}\"},{\"n\":[1,{\"k\":2}]},{\"k\":\"\\\"]\"}]");
+
+        for (int chunkBytes = 1; chunkBytes <= 48; chunkBytes++) {
+            assertEquals(List.of("a,]}", 2L, "\"]"), normalize(search(file, "k", chunkBytes)), "chunkBytes " + chunkBytes);
+        }
+    }
+
+    @Test
+    void searchesNdjsonInFileOrder() throws IOException {
+        StringBuilder content = new StringBuilder();
+        List<Long> expected = new ArrayList<>();
+        for (long i = 0; i < 200; i++) {
+            content.append("{\"id\":").append(i).append(",\"k\":").append(i * 2).append("}\n");
+            expected.add(i * 2);
+        }
+        Path file = write(content.toString());
+
+        assertEquals(expected, longs(search(file, "k", 64)));
+    }
+
+    @Test
+    void findsNothingInAnEmptyArray() throws IOException {
+        assertEquals(List.of(), search(write("  [ ]  "), "k", 1));
+    }
+
+    private static List<Object> normalize(List<Object> values) {
+        List<Object> result = new ArrayList<>();
+        for (Object value : values) {
+            result.add(value instanceof Number ? (Object) ((Number) value).longValue() : value);
+        }
+        return result;
+    }
+}
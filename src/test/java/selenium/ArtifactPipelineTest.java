@@ -0,0 +1,96 @@
+package selenium;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ArtifactPipelineTest {
+
+    @TempDir
+    Path dir;
+
+    private ArtifactPipeline pipeline(String... keyValues) {
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put("outputDir", dir.toString());
+        for (int i = 0; i < keyValues.length; i += 2) {
+            parameters.put(keyValues[i], keyValues[i + 1]);
+        }
+        return new ArtifactPipeline(parameters);
+    }
+
+    private static byte[] image(String format, int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                image.setRGB(x, y, (x * 31 + y * 17) * 0x010203);
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, format, out);
+        return out.toByteArray();
+    }
+
+    @Test
+    void sameSanitizedNameGetsASuffix() {
+        ArtifactPipeline pipeline = pipeline();
+        try {
+            Path first = pipeline.submit(ArtifactPipeline.Kind.PAGE_SOURCE, "page/1", "first", 0).join().getPath();
+            Path second = pipeline.submit(ArtifactPipeline.Kind.PAGE_SOURCE, "page:1", "second", 0).join().getPath();
+
+            assertEquals("page_1.html", first.getFileName().toString());
+            assertEquals("page_1-1.html", second.getFileName().toString());
+        } finally {
+            pipeline.close();
+        }
+    }
+
+    @Test
+    void explicitJpegQualityReencodesWithoutDownscaling() throws IOException {
+        byte[] jpeg = image("jpeg", 64, 64);
+        String payload = Base64.getEncoder().encodeToString(jpeg);
+        ArtifactPipeline kept = pipeline();
+        ArtifactPipeline reencoded = pipeline("jpegQuality", "0.1");
+        try {
+            Path keptPath = kept.submit(ArtifactPipeline.Kind.SCREENSHOT_JPEG, "kept", payload, 0).join().getPath();
+            Path reencodedPath = reencoded.submit(ArtifactPipeline.Kind.SCREENSHOT_JPEG, "reencoded", payload, 0).join().getPath();
+
+            assertArrayEquals(jpeg, Files.readAllBytes(keptPath));
+            byte[] written = Files.readAllBytes(reencodedPath);
+            assertNotEquals(jpeg.length, written.length);
+            assertEquals(64, ImageIO.read(reencodedPath.toFile()).getWidth());
+        } finally {
+            kept.close();
+            reencoded.close();
+        }
+    }
+
+    @Test
+    void wideScreenshotIsDownscaledToMaxWidth() throws IOException {
+        byte[] png = image("png", 32, 16);
+        ArtifactPipeline pipeline = pipeline("maxWidth", "16", "jpegQuality", "0.5");
+        try {
+            Path path = pipeline.submit(ArtifactPipeline.Kind.SCREENSHOT_PNG, "wide",
+                    Base64.getEncoder().encodeToString(png), 0).join().getPath();
+
+            BufferedImage written = ImageIO.read(path.toFile());
+            assertEquals(16, written.getWidth());
+            assertEquals(8, written.getHeight());
+        } finally {
+            pipeline.close();
+        }
+    }
+}
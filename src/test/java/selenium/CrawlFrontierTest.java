@@ -0,0 +1,293 @@
+package selenium;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Crawls pages served by a local HttpServer with plain HTTP requests in place of browser
+ * sessions, so the frontier is exercised end to end without a driver.
+ */
+class CrawlFrontierTest {
+    private static final Pattern HREF = Pattern.compile("href=\"([^\"]+)\"");
+
+    private HttpServer server;
+    private String base;
+    private final Map<String, String> pages = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> hits = new ConcurrentHashMap<>();
+    /** Remaining 503 responses per path. */
+    private final Map<String, AtomicInteger> failures = new ConcurrentHashMap<>();
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::serve);
+        server.start();
+        base = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        hits.computeIfAbsent(path, p -> new AtomicInteger()).incrementAndGet();
+        AtomicInteger remaining = failures.get(path);
+        String page = pages.get(path);
+        int status = remaining != null && remaining.getAndDecrement() > 0 ? 503 : page == null ? 404 : 200;
+        byte[] body = (status == 200 ? page : "error " + status).getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private void page(String path, String... links) {
+        StringBuilder html = new StringBuilder("<html><body>");
+        for (String link : links) {
+            html.append("<a href=\"").append(link).append("\">").append(link).append("</a>");
+        }
+        pages.put(path, html.append("</body></html>").toString());
+    }
+
+    private static CrawlFrontier frontier(String... overrides) {
+        Map<String, String> params = new HashMap<>();
+        params.put("hostRatePerSecond", "1000");
+        params.put("hostBurst", "100");
+        params.put("hostConcurrency", "4");
+        params.put("backoffBaseMillis", "10");
+        params.put("backoffMaxMillis", "50");
+        for (int i = 0; i < overrides.length; i += 2) {
+            params.put(overrides[i], overrides[i + 1]);
+        }
+        return new CrawlFrontier(params);
+    }
+
+    /**
+     * Drains the frontier with the given number of threads, each page's links are added back
+     * one level deeper and 5xx responses are reported as failures.
+     */
+    private void crawl(CrawlFrontier frontier, int threads) throws InterruptedException {
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    while (true) {
+                        CrawlFrontier.CrawlTask task = frontier.take(200);
+                        if (task == null) {
+                            if (frontier.isClosed() || frontier.isFinished()) {
+                                return;
+                            }
+                            continue;
+                        }
+                        fetch(frontier, task);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join(10000);
+            assertFalse(worker.isAlive(), "crawl did not finish");
+        }
+    }
+
+    private void fetch(CrawlFrontier frontier, CrawlFrontier.CrawlTask task) throws InterruptedException {
+        try {
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(task.getUrl())).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() >= 500) {
+                throw new IOException("HTTP " + response.statusCode());
+            }
+            Matcher matcher = HREF.matcher(response.body());
+            while (matcher.find()) {
+                frontier.add(base + matcher.group(1), 0, task.getDepth() + 1);
+            }
+            frontier.complete(task);
+        } catch (IOException e) {
+            frontier.fail(task, e);
+        }
+    }
+
+    private int hits(String path) {
+        AtomicInteger count = hits.get(path);
+        return count == null ? 0 : count.get();
+    }
+
+    @Test
+    void fetchesEveryPageOnceDespiteCycles() throws InterruptedException {
+        page("/", "/a", "/b");
+        page("/a", "/", "/b");
+        page("/b", "/a", "/");
+        CrawlFrontier frontier = frontier();
+        assertTrue(frontier.add(base + "/"));
+        assertFalse(frontier.add(base + "/"));
+
+        crawl(frontier, 3);
+
+        assertEquals(1, hits("/"));
+        assertEquals(1, hits("/a"));
+        assertEquals(1, hits("/b"));
+        CrawlFrontier.FrontierStats stats = frontier.getStats();
+        assertEquals(3, stats.getCompleted());
+        assertEquals(5, stats.getDuplicates());
+    }
+
+    @Test
+    void refetchesWhenDeduplicationIsOff() {
+        CrawlFrontier frontier = frontier("deduplicate", "false");
+        assertTrue(frontier.add(base + "/"));
+        assertTrue(frontier.add(base + "/"));
+        assertEquals(2, frontier.getStats().getQueued());
+    }
+
+    @Test
+    void retriesFailedPagesUntilTheySucceed() throws InterruptedException {
+        page("/", "/flaky");
+        page("/flaky");
+        failures.put("/flaky", new AtomicInteger(2));
+        CrawlFrontier frontier = frontier("maxRetries", "3");
+        frontier.add(base + "/");
+
+        crawl(frontier, 2);
+
+        assertEquals(3, hits("/flaky"));
+        CrawlFrontier.FrontierStats stats = frontier.getStats();
+        assertEquals(2, stats.getCompleted());
+        assertEquals(2, stats.getRetried());
+        assertEquals(0, stats.getFailed());
+    }
+
+    @Test
+    void givesUpAfterMaxRetries() throws InterruptedException {
+        page("/down");
+        failures.put("/down", new AtomicInteger(Integer.MAX_VALUE));
+        CrawlFrontier frontier = frontier("maxRetries", "2");
+        frontier.add(base + "/down");
+
+        crawl(frontier, 1);
+
+        assertEquals(3, hits("/down"));
+        CrawlFrontier.FrontierStats stats = frontier.getStats();
+        assertEquals(0, stats.getCompleted());
+        assertEquals(2, stats.getRetried());
+        assertEquals(1, stats.getFailed());
+        assertEquals(1, stats.getHosts().get("127.0.0.1").getFailed());
+    }
+
+    @Test
+    void stopsAtMaxDepth() throws InterruptedException {
+        page("/d0", "/d1");
+        page("/d1", "/d2");
+        page("/d2", "/d3");
+        page("/d3", "/d4");
+        CrawlFrontier frontier = frontier("maxDepth", "2");
+        frontier.add(base + "/d0");
+
+        crawl(frontier, 2);
+
+        assertEquals(1, hits("/d2"));
+        assertEquals(0, hits("/d3"));
+        CrawlFrontier.FrontierStats stats = frontier.getStats();
+        assertEquals(3, stats.getCompleted());
+        assertEquals(1, stats.getTooDeep());
+    }
+
+    @Test
+    void tooDeepUrlsAreNotMarkedSeen() {
+        CrawlFrontier frontier = frontier("maxDepth", "1");
+        assertFalse(frontier.add(base + "/x", 0, 2));
+        assertTrue(frontier.add(base + "/x", 0, 1));
+    }
+
+    @Test
+    void finishesOnceNothingIsQueuedOrInFlight() throws InterruptedException {
+        page("/");
+        CrawlFrontier frontier = frontier();
+        assertTrue(frontier.isFinished());
+        frontier.add(base + "/");
+        assertFalse(frontier.isFinished());
+
+        crawl(frontier, 1);
+
+        assertTrue(frontier.isFinished());
+        assertFalse(frontier.isClosed());
+        assertNull(frontier.take(1000));
+    }
+
+    @Test
+    void closeReleasesTakersAndRejectsUrls() throws InterruptedException {
+        CrawlFrontier frontier = frontier("hostRatePerSecond", "0.001", "hostBurst", "1");
+        frontier.add(base + "/a");
+        frontier.add(base + "/b");
+        assertNotNull(frontier.take(1000));
+
+        AtomicReference<Object> taken = new AtomicReference<>("pending");
+        Thread taker = new Thread(() -> {
+            try {
+                // /b waits for the host's rate limit, close() must end the wait
+                taken.set(frontier.take(60000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        taker.start();
+        Thread.sleep(100);
+        frontier.close();
+        taker.join(5000);
+        assertFalse(taker.isAlive());
+        assertNull(taken.get());
+
+        assertTrue(frontier.isClosed());
+        assertFalse(frontier.isFinished());
+        assertThrows(IllegalStateException.class, () -> frontier.add(base + "/c"));
+    }
+
+    @Test
+    void schedulerWorkersStopOnceTheFrontierIsClosed() throws InterruptedException {
+        CrawlFrontier frontier = frontier();
+        frontier.add(base + "/");
+        frontier.close();
+        // The pool is never reached, a closed frontier hands out no task
+        CrawlScheduler scheduler = new CrawlScheduler(frontier, null, 2, "css", Readiness.domContentLoaded(),
+                (action, task, f) -> { });
+        scheduler.start();
+        assertTrue(scheduler.awaitCompletion(5000));
+        scheduler.close();
+    }
+}
@@ -0,0 +1,25 @@
+package selenium;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class DriverActionTest {
+
+    @Test
+    void fragmentOfTheCurrentDocumentKeepsTheDocument() {
+        assertTrue(DriverAction.isFragmentNavigation("https://example.com/a", "https://example.com/a#top"));
+        assertTrue(DriverAction.isFragmentNavigation("https://example.com/a#top", "https://example.com/a#end"));
+        assertTrue(DriverAction.isFragmentNavigation("https://example.com/a#top", "https://example.com/a#top"));
+    }
+
+    @Test
+    void otherUrlsLoadANewDocument() {
+        assertFalse(DriverAction.isFragmentNavigation("https://example.com/a#top", "https://example.com/a"));
+        assertFalse(DriverAction.isFragmentNavigation("https://example.com/a", "https://example.com/a"));
+        assertFalse(DriverAction.isFragmentNavigation("https://example.com/a", "https://example.com/b#top"));
+        assertFalse(DriverAction.isFragmentNavigation("https://example.com/a?x=1", "https://example.com/a#top"));
+        assertFalse(DriverAction.isFragmentNavigation(null, "https://example.com/a#top"));
+    }
+}
@@ -0,0 +1,54 @@
+package selenium;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Matches the blocked URL patterns the way Network.setBlockedURLs does: the whole URL against
+ * a glob where '*' stands for any run of characters.
+ */
+class FetchProfileTest {
+
+    private static boolean blocked(FetchProfile profile, String url) {
+        for (String pattern : profile.getBlockedUrlPatterns()) {
+            String regex = Pattern.quote(pattern).replace("*", "\\E.*\\Q");
+            if (url.matches(regex)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    void domOnlyBlocksResourcesByExtension() {
+        assertTrue(blocked(FetchProfile.DOM_ONLY, "https://cdn.example.com/img/logo.png"));
+        assertTrue(blocked(FetchProfile.DOM_ONLY, "https://cdn.example.com/img/logo.png?v=3"));
+        assertTrue(blocked(FetchProfile.DOM_ONLY, "https://example.com/fonts/inter.woff2"));
+        assertTrue(blocked(FetchProfile.DOM_ONLY, "https://example.com/app.css?h=abc"));
+        assertTrue(blocked(FetchProfile.DOM_ONLY, "https://www.google-analytics.com/analytics.js"));
+        assertTrue(blocked(FetchProfile.DOM_ONLY, "https://googletagmanager.com/gtm.js?id=1"));
+    }
+
+    @Test
+    void domOnlyKeepsScriptsAndXhrWhoseUrlContainsAnExtension() {
+        assertFalse(blocked(FetchProfile.DOM_ONLY, "https://cdn.css-tricks.com/app.js"));
+        assertFalse(blocked(FetchProfile.DOM_ONLY, "https://api.icons8.com/v1/search.json"));
+        assertFalse(blocked(FetchProfile.DOM_ONLY, "https://example.com/js/vendor.iconify.js"));
+        assertFalse(blocked(FetchProfile.DOM_ONLY, "https://example.com/api/png-list"));
+        assertFalse(blocked(FetchProfile.DOM_ONLY, "https://example.com/google-analytics.com.js"));
+        assertFalse(blocked(FetchProfile.DOM_ONLY, "https://example.com/"));
+    }
+
+    @Test
+    void noMediaKeepsStylesheetsAndFonts() {
+        assertTrue(blocked(FetchProfile.NO_MEDIA, "https://example.com/hero.jpg"));
+        assertTrue(blocked(FetchProfile.NO_MEDIA, "https://example.com/clip.mp4"));
+        assertFalse(blocked(FetchProfile.NO_MEDIA, "https://example.com/app.css"));
+        assertFalse(blocked(FetchProfile.NO_MEDIA, "https://example.com/inter.woff2"));
+        assertFalse(blocked(FetchProfile.FULL, "https://example.com/hero.jpg"));
+    }
+}
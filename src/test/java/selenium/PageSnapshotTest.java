@@ -0,0 +1,110 @@
+package selenium;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.dom4j.Element;
+import org.dom4j.Namespace;
+import org.dom4j.QName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Parses markup shaped like the output of {@link PageSnapshot#JS_SERIALIZE} for pages built
+ * with client-side frameworks, whose binding attributes are not XML names.
+ */
+class PageSnapshotTest {
+    private static final String FRAMEWORK_PAGE = "<!DOCTYPE html>"
+            + "<html xmlns=\"http://www.w3.org/1999/xhtml\"><head><title>App</title></head><body>"
+            + "<div id=\"app\" :class=\"{ active: isActive }\" @click=\"toggle()\">"
+            + "<input id=\"q\" name=\"q\" [ngmodel]=\"query\" (input)=\"search($event)\" />"
+            + "<a id=\"go\" href=\"/search?q=a&amp;b=1\" v-on:click=\"go\" #ref=\"link\">Go &gt; now</a>"
+            + "<p id=\"title\" :title=\"dynamic\" _title=\"static\" @title=\"bound\">x</p>"
+            + "<svg xmlns=\"http://www.w3.org/2000/svg\" xmlns:xlink=\"http://www.w3.org/1999/xlink\">"
+            + "<use id=\"icon\" xlink:href=\"#i\"></use></svg>"
+            + "<!-- <b @x=\"1\"> -->"
+            + "</div></body></html>";
+
+    @Test
+    void parsesFrameworkBindingAttributes() {
+        PageSnapshot snapshot = PageSnapshot.parse(FRAMEWORK_PAGE, "id");
+
+        assertEquals("{ active: isActive }", snapshot.read("app", "_class"));
+        assertEquals("toggle()", snapshot.read("app", "_click"));
+        assertEquals("query", snapshot.read("q", "_ngmodel_"));
+        assertEquals("search($event)", snapshot.read("q", "_input_"));
+        assertEquals("go", snapshot.read("go", "v-on_click"));
+        assertEquals("link", snapshot.read("go", "_ref"));
+        assertEquals("/search?q=a&b=1", snapshot.read("go", "href"));
+        assertEquals("Go > now", snapshot.read("go", null));
+    }
+
+    @Test
+    void suffixesRepairedNamesThatAreAlreadyTaken() {
+        PageSnapshot snapshot = PageSnapshot.parse(FRAMEWORK_PAGE, "id");
+
+        assertEquals("static", snapshot.read("title", "_title"));
+        assertEquals("dynamic", snapshot.read("title", "_title_2"));
+        assertEquals("bound", snapshot.read("title", "_title_3"));
+        assertEquals(4, snapshot.find("title").attributeCount());
+    }
+
+    @Test
+    void reportsMissingElementsApartFromAbsentAttributes() {
+        PageSnapshot snapshot = PageSnapshot.parse(FRAMEWORK_PAGE, "id");
+        Map<String, String> locators = new LinkedHashMap<>();
+        locators.put("link", "go");
+        locators.put("input", "q");
+        locators.put("gone", "nowhere");
+        Set<String> missing = new HashSet<>();
+
+        Map<String, String> values = snapshot.read(locators, "href", missing);
+
+        assertEquals("/search?q=a&b=1", values.get("link"));
+        assertNull(values.get("input"));
+        assertNull(values.get("gone"));
+        assertEquals(Set.of("gone"), missing);
+    }
+
+    @Test
+    void keepsDeclaredPrefixesAndComments() {
+        PageSnapshot snapshot = PageSnapshot.parse(FRAMEWORK_PAGE, "id");
+
+        Element use = snapshot.find("icon");
+        assertNotNull(use);
+        assertEquals("#i", use.attributeValue(
+                QName.get("href", Namespace.get("xlink", "http://www.w3.org/1999/xlink"))));
+        String repaired = PageSnapshot.repairAttributeNames(FRAMEWORK_PAGE);
+        assertEquals(1, count(repaired, "<!-- <b @x=\"1\"> -->"));
+    }
+
+    @Test
+    void leavesValidMarkupUntouched() {
+        String markup = "<html><body><p id=\"a\" class=\"x y\" data-v=\"1 &gt; 0\">a</p><br /></body></html>";
+        assertSame(markup, PageSnapshot.repairAttributeNames(markup));
+    }
+
+    @Test
+    void findsElementsByCssAfterRepair() {
+        PageSnapshot snapshot = PageSnapshot.parse(FRAMEWORK_PAGE, "css");
+
+        List<Element> inputs = snapshot.findAll("div input");
+        assertEquals(1, inputs.size());
+        assertNull(snapshot.find("div span"));
+    }
+
+    private static int count(String text, String part) {
+        int count = 0;
+        for (int i = text.indexOf(part); i >= 0; i = text.indexOf(part, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+}